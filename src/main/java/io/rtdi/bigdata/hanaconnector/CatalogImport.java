@@ -0,0 +1,240 @@
+package io.rtdi.bigdata.hanaconnector;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.rtdi.bigdata.connector.connectorframework.exceptions.ConnectorRuntimeException;
+import io.rtdi.bigdata.hanaconnector.HanaBrowse.TableImport;
+
+/**
+ * Creates the mapping files for a list of tables. The column and primary key metadata is read with one query
+ * per schema and up to BATCH_SIZE tables, the files are written in parallel.<br>
+ * The import can be executed synchronously via run() or as a background job via start(), the job's progress
+ * is available via getJob() until it is evicted by newer jobs.
+ *
+ */
+public class CatalogImport implements Runnable {
+	private static final Logger logger = LogManager.getLogger(CatalogImport.class);
+	private static final int BATCH_SIZE = 500;
+	private static final int WRITER_THREADS = 4;
+	private static final int MAX_JOBS = 20;
+	private static final ExecutorService jobexecutor = Executors.newCachedThreadPool(r -> {
+		Thread t = new Thread(r, "CatalogImport");
+		t.setDaemon(true);
+		return t;
+	});
+	/**
+	 * The most recent jobs, the oldest is removed when more than MAX_JOBS are kept
+	 */
+	private static final Map<String, CatalogImport> jobs = Collections.synchronizedMap(new LinkedHashMap<String, CatalogImport>() {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CatalogImport> eldest) {
+			return size() > MAX_JOBS;
+		}
+	});
+
+	public static final String STATUS_QUEUED = "QUEUED";
+	public static final String STATUS_RUNNING = "RUNNING";
+	public static final String STATUS_FINISHED = "FINISHED";
+	public static final String STATUS_FAILED = "FAILED";
+
+	private final String id = UUID.randomUUID().toString();
+	private final HanaConnectionProperties props;
+	private final File directory;
+	private final List<TableImport> tables;
+	private volatile String status = STATUS_QUEUED;
+	private volatile String message;
+	private final AtomicInteger readcount = new AtomicInteger();
+	private final AtomicInteger writtencount = new AtomicInteger();
+	private final Map<String, String> errors = Collections.synchronizedMap(new LinkedHashMap<>());
+	private volatile long starttime;
+	private volatile long endtime;
+
+	/**
+	 * @param props the connection to read the metadata with
+	 * @param directory the BusinessObjects directory
+	 * @param tables the tables to create mappings for
+	 */
+	public CatalogImport(HanaConnectionProperties props, File directory, List<TableImport> tables) {
+		this.props = props;
+		this.directory = directory;
+		this.tables = tables;
+	}
+
+	/**
+	 * Executes the import in the background.
+	 *
+	 * @return this job
+	 */
+	public CatalogImport start() {
+		jobs.put(id, this);
+		jobexecutor.execute(this);
+		return this;
+	}
+
+	/**
+	 * @param id the job id
+	 * @return the job or null if not known (anymore)
+	 */
+	public static CatalogImport getJob(String id) {
+		return jobs.get(id);
+	}
+
+	@Override
+	public void run() {
+		status = STATUS_RUNNING;
+		starttime = System.currentTimeMillis();
+		ExecutorService writers = Executors.newFixedThreadPool(WRITER_THREADS, r -> {
+			Thread t = new Thread(r, "CatalogImport-Writer");
+			t.setDaemon(true);
+			return t;
+		});
+		try (Connection conn = HanaConnectorFactory.getDatabaseConnection(props);) {
+			Map<String, List<TableImport>> byschema = new HashMap<>();
+			for (TableImport t : tables) {
+				byschema.computeIfAbsent(t.getHanaschemaname(), k -> new ArrayList<>()).add(t);
+			}
+			for (Map.Entry<String, List<TableImport>> e : byschema.entrySet()) {
+				List<TableImport> schematables = e.getValue();
+				for (int i = 0; i < schematables.size(); i += BATCH_SIZE) {
+					List<TableImport> batch = schematables.subList(i, Math.min(i + BATCH_SIZE, schematables.size()));
+					for (HanaTableMapping mapping : readMetadata(conn, e.getKey(), batch)) {
+						writers.execute(() -> write(mapping));
+					}
+				}
+			}
+			writers.shutdown();
+			writers.awaitTermination(1, TimeUnit.HOURS);
+			status = errors.size() == 0 ? STATUS_FINISHED : STATUS_FAILED;
+			message = "Saved " + writtencount.get() + " of " + tables.size() + " table schemas";
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			status = STATUS_FAILED;
+			message = "Import got interrupted";
+		} catch (Exception e) {
+			logger.error("Importing the table metadata failed", e);
+			status = STATUS_FAILED;
+			message = e.getMessage();
+		} finally {
+			writers.shutdownNow();
+			endtime = System.currentTimeMillis();
+			logger.info("Catalog import of {} tables {} in {}ms: {}", tables.size(), status, endtime - starttime, message);
+		}
+	}
+
+	private List<HanaTableMapping> readMetadata(Connection conn, String schemaname, List<TableImport> batch) throws ConnectorRuntimeException {
+		StringBuffer b = new StringBuffer();
+		b.append("select c.table_name, c.column_name, c.data_type_name, c.length, c.scale, p.position \r\n" +
+				"from table_columns c left outer join constraints p \r\n" +
+				"	on (p.is_primary_key = 'TRUE' and p.schema_name = c.schema_name and p.table_name = c.table_name and p.column_name = c.column_name) \r\n" +
+				"where c.schema_name = ? and c.table_name in (");
+		for (int i = 0; i < batch.size(); i++) {
+			b.append(i == 0 ? "?" : ", ?");
+		}
+		b.append(") \r\norder by c.table_name, c.position");
+		String sql = b.toString();
+		/*
+		 * The same table can be imported under multiple mapping names, each gets its own mapping with the table's columns
+		 */
+		Map<TableImport, HanaTableMapping> mappings = new LinkedHashMap<>();
+		Map<String, List<HanaTableMapping>> tablemappings = new HashMap<>();
+		for (TableImport t : batch) {
+			HanaTableMapping mapping = new HanaTableMapping(t.getMappingname(), props.getUsername(), schemaname, t.getHanatablename());
+			mappings.put(t, mapping);
+			tablemappings.computeIfAbsent(t.getHanatablename(), k -> new ArrayList<>()).add(mapping);
+		}
+		try (PreparedStatement stmt = conn.prepareStatement(sql);) {
+			stmt.setString(1, schemaname);
+			for (int i = 0; i < batch.size(); i++) {
+				stmt.setString(i + 2, batch.get(i).getHanatablename());
+			}
+			try (ResultSet rs = stmt.executeQuery();) {
+				while (rs.next()) {
+					for (HanaTableMapping mapping : tablemappings.get(rs.getString(1))) {
+						mapping.addColumn(rs.getString(2), rs.getString(3), rs.getInt(4), rs.getInt(5), rs.getInt(6));
+					}
+				}
+			}
+		} catch (SQLException e) {
+			throw new ConnectorRuntimeException("Reading the table definitions failed", e,
+					"Execute the sql as Hana user \"" + props.getUsername() + "\"", sql);
+		}
+		List<HanaTableMapping> ret = new ArrayList<>();
+		for (TableImport t : batch) {
+			HanaTableMapping mapping = mappings.get(t);
+			if (mapping.getColumnmappings() == null) {
+				errors.put(t.getMappingname(), "This table does not seem to exist in the Hana database itself");
+			} else {
+				ret.add(mapping);
+			}
+			readcount.incrementAndGet();
+		}
+		return ret;
+	}
+
+	private void write(HanaTableMapping mapping) {
+		try {
+			MappingCache.getCache(directory).put(mapping);
+			writtencount.incrementAndGet();
+		} catch (Exception e) {
+			errors.put(mapping.getName(), e.getMessage());
+		}
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public int getTablecount() {
+		return tables.size();
+	}
+
+	public int getReadcount() {
+		return readcount.get();
+	}
+
+	public int getWrittencount() {
+		return writtencount.get();
+	}
+
+	public Map<String, String> getErrors() {
+		synchronized (errors) {
+			return new LinkedHashMap<>(errors);
+		}
+	}
+
+	public long getStarttime() {
+		return starttime;
+	}
+
+	public long getEndtime() {
+		return endtime;
+	}
+}
@@ -0,0 +1,434 @@
+package io.rtdi.bigdata.hanaconnector;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.rtdi.bigdata.connector.connectorframework.exceptions.ConnectorRuntimeException;
+
+/**
+ * The PKLOG table is range partitioned by CHANGE_TS with one partition per day.
+ * The partitions for the next days are created upfront, retention drops the partitions of the outdated days as a whole.
+ * A PARTITION OTHERS catches rows outside of all ranges, e.g. when the periodic task did not run for a while.<br>
+ * As multiple producers can share the PKLOG, each producer records the transaction id it has read up to in the DELTAINFO table.
+ * Log rows at or below the lowest of these positions are not needed by anybody and are purged.
+ *
+ */
+class ChangeLogTable {
+	private static final Logger logger = LogManager.getLogger(ChangeLogTable.class);
+	static final String TABLE_NAME = "PKLOG";
+	static final String DELTAINFO_TABLE_NAME = "DELTAINFO";
+	/**
+	 * The fingerprints of the deployed triggers and views, see DeltaObjectCatalog
+	 */
+	static final String DELTAOBJECTS_TABLE_NAME = "DELTAOBJECTS";
+	/**
+	 * Session local temporary table holding the deduplicated keys of the current poll window
+	 */
+	static final String WINDOW_TABLE_NAME = "#PKLOG_WINDOW";
+	private static final int MAX_PK_COLUMNS = 6;
+	/**
+	 * Number of days for which the partitions are created in advance
+	 */
+	private static final int PARTITIONS_AHEAD = 2;
+
+	private static final String COLUMNS = "CHANGE_TS timestamp, "
+			+ "SCHEMA_NAME nvarchar(256), "
+			+ "CHANGE_TYPE varchar(1), "
+			+ "PK1 nvarchar(256), "
+			+ "PK2 nvarchar(256), "
+			+ "PK3 nvarchar(256), "
+			+ "PK4 nvarchar(256), "
+			+ "PK5 nvarchar(256), "
+			+ "PK6 nvarchar(256), "
+			+ "TRANSACTIONID bigint, "
+			+ "TRANSACTION_SEQ integer, "
+			+ "TABLE_NAME nvarchar(256)";
+
+	private ChangeLogTable() {
+	}
+
+	/**
+	 * Creates the PKLOG table as partitioned table or partitions an existing, unpartitioned one.
+	 *
+	 * @param conn connection of the Hana user owning the PKLOG
+	 * @param retentiondays number of days the log is kept, existing data older than that goes into the OTHERS partition
+	 * @throws ConnectorRuntimeException in case the table cannot be created or partitioned
+	 */
+	static void create(Connection conn, int retentiondays) throws ConnectorRuntimeException {
+		String sql = null;
+		try {
+			LocalDate today = getCurrentDate(conn);
+			if (!HanaTableMapping.checktable(TABLE_NAME, conn)) {
+				sql = "create column table " + TABLE_NAME + " (" + COLUMNS + ")\r\n"
+						+ getPartitionSpec(today.minusDays(1), today.plusDays(PARTITIONS_AHEAD));
+				try (PreparedStatement stmt = conn.prepareStatement(sql);) {
+					stmt.execute();
+				}
+				logger.debug("Created the PKLOG table: {}", sql);
+			} else if (getPartitions(conn).size() == 0) {
+				sql = "alter table " + TABLE_NAME + "\r\n"
+						+ getPartitionSpec(today.minusDays(retentiondays), today.plusDays(PARTITIONS_AHEAD));
+				try (PreparedStatement stmt = conn.prepareStatement(sql);) {
+					stmt.execute();
+				}
+				logger.info("Converted the existing PKLOG table into a partitioned table: {}", sql);
+			}
+			if (!HanaTableMapping.checktable(DELTAINFO_TABLE_NAME, conn)) {
+				sql = "create column table " + DELTAINFO_TABLE_NAME + " ("
+						+ "PRODUCERNAME nvarchar(256) primary key, "
+						+ "TRANSACTIONID bigint, "
+						+ "DELTA_TS timestamp)";
+				try (PreparedStatement stmt = conn.prepareStatement(sql);) {
+					stmt.execute();
+				}
+				logger.debug("Created the DELTAINFO table: {}", sql);
+			}
+			if (!HanaTableMapping.checktable(DELTAOBJECTS_TABLE_NAME, conn)) {
+				sql = "create column table " + DELTAOBJECTS_TABLE_NAME + " ("
+						+ "SCHEMA_NAME nvarchar(256), "
+						+ "TABLE_NAME nvarchar(256), "
+						+ "OBJECT_NAME nvarchar(256), "
+						+ "FINGERPRINT varchar(64), "
+						+ "DEPLOY_TS timestamp, "
+						+ "primary key (SCHEMA_NAME, TABLE_NAME, OBJECT_NAME))";
+				try (PreparedStatement stmt = conn.prepareStatement(sql);) {
+					stmt.execute();
+				}
+				logger.debug("Created the DELTAOBJECTS table: {}", sql);
+			}
+		} catch (SQLException e) {
+			throw new ConnectorRuntimeException("Creating the PKLOG table failed", e,
+					"Execute the sql as the Hana user of the connection", sql);
+		}
+	}
+
+	/**
+	 * Reads the PKLOG rows of the transaction window once and stores the latest transaction id per table and primary key
+	 * in the session local WINDOW_TABLE_NAME table, which is created on first use. All delta selects of the poll read this
+	 * staged set instead of the PKLOG, hence must use the same connection.
+	 *
+	 * @param stmtcache the cache of the producer connection
+	 * @param min_transactionid lower bound, exclusive
+	 * @param max_transactionid upper bound, inclusive
+	 * @param windowstart lower bound of the change_ts, used for partition pruning
+	 * @return number of keys staged
+	 * @throws SQLException in case the staging fails
+	 */
+	static int stageWindow(StatementCache stmtcache, long min_transactionid, long max_transactionid, Timestamp windowstart) throws SQLException {
+		StringBuffer pklist = new StringBuffer();
+		for (int i = 1; i <= MAX_PK_COLUMNS; i++) {
+			pklist.append(", PK");
+			pklist.append(i);
+		}
+		String clearsql = "delete from \"" + WINDOW_TABLE_NAME + "\"";
+		String insertsql = "insert into \"" + WINDOW_TABLE_NAME + "\" (TABLE_NAME, SCHEMA_NAME" + pklist + ", TRANSACTIONID)\r\n"
+				+ "select table_name, schema_name" + pklist + ", max(transactionid) from " + TABLE_NAME + "\r\n"
+				+ "where transactionid > ? and transactionid <= ? and change_ts >= ?\r\n"
+				+ "group by table_name, schema_name" + pklist;
+		PreparedStatement clearstmt;
+		try {
+			clearstmt = stmtcache.get(StatementCache.KIND_WINDOWCLEAR, null, clearsql);
+		} catch (SQLException e) {
+			// the table does not exist yet in this session
+			StringBuffer pkcolumns = new StringBuffer();
+			for (int i = 1; i <= MAX_PK_COLUMNS; i++) {
+				pkcolumns.append("PK");
+				pkcolumns.append(i);
+				pkcolumns.append(" nvarchar(256), ");
+			}
+			String sql = "create local temporary column table \"" + WINDOW_TABLE_NAME + "\" ("
+					+ "TABLE_NAME nvarchar(256), SCHEMA_NAME nvarchar(256), " + pkcolumns + "TRANSACTIONID bigint)";
+			try (PreparedStatement stmt = stmtcache.getConnection().prepareStatement(sql);) {
+				stmt.execute();
+			}
+			logger.debug("Created the session local table for the staged poll window: {}", sql);
+			clearstmt = stmtcache.get(StatementCache.KIND_WINDOWCLEAR, null, clearsql);
+		}
+		clearstmt.execute();
+		PreparedStatement insertstmt = stmtcache.get(StatementCache.KIND_WINDOWSTAGE, null, insertsql);
+		insertstmt.setLong(1, min_transactionid);
+		insertstmt.setLong(2, max_transactionid);
+		insertstmt.setTimestamp(3, windowstart);
+		return insertstmt.executeUpdate();
+	}
+
+	/**
+	 * Records the position of a producer, all log rows up to this transaction id have been sent by it.
+	 *
+	 * @param stmtcache the cache of the producer connection
+	 * @param producername name of the producer
+	 * @param transactionid the transaction id the producer has read up to
+	 * @throws SQLException in case the DELTAINFO cannot be updated
+	 */
+	static void setPosition(StatementCache stmtcache, String producername, long transactionid) throws SQLException {
+		String sql = "upsert " + DELTAINFO_TABLE_NAME + " (producername, transactionid, delta_ts) values (?, ?, now()) where producername = ?";
+		PreparedStatement stmt = stmtcache.get(StatementCache.KIND_DELTAINFO, null, sql);
+		stmt.setString(1, producername);
+		stmt.setLong(2, transactionid);
+		stmt.setString(3, producername);
+		stmt.execute();
+	}
+
+	/**
+	 * Registers a starting producer before it reads anything, so a purge running in the meantime keeps the rows it needs.
+	 * A new producer starts at the given transaction id, an existing one keeps its position and is marked active again.
+	 *
+	 * @param conn connection of the Hana user owning the PKLOG
+	 * @param producername name of the producer
+	 * @param transactionid the transaction id the initial loads of a new producer are based on
+	 * @throws SQLException in case the DELTAINFO cannot be updated
+	 */
+	static void initPosition(Connection conn, String producername, long transactionid) throws SQLException {
+		String sql = "update " + DELTAINFO_TABLE_NAME + " set delta_ts = now() where producername = ?";
+		int rows;
+		try (PreparedStatement stmt = conn.prepareStatement(sql);) {
+			stmt.setString(1, producername);
+			rows = stmt.executeUpdate();
+		}
+		if (rows == 0) {
+			sql = "insert into " + DELTAINFO_TABLE_NAME + " (producername, transactionid, delta_ts) values (?, ?, now())";
+			try (PreparedStatement stmt = conn.prepareStatement(sql);) {
+				stmt.setString(1, producername);
+				stmt.setLong(2, transactionid);
+				stmt.execute();
+			}
+			logger.debug("Registered the producer {} in the DELTAINFO table at transaction id {}", producername, transactionid);
+		}
+	}
+
+	/**
+	 * The watermark is the lowest position of all producers sharing the PKLOG. Producers that did not update their position
+	 * within the retention period are considered removed and ignored.
+	 *
+	 * @param conn connection of the Hana user owning the PKLOG
+	 * @param retentiondays number of days after which a producer's position is ignored
+	 * @return the transaction id up to which all log rows can be deleted or -1 if unknown
+	 * @throws SQLException in case the DELTAINFO cannot be read
+	 */
+	static long getWatermark(Connection conn, int retentiondays) throws SQLException {
+		String sql = "select min(transactionid) from " + DELTAINFO_TABLE_NAME + " where delta_ts >= add_days(now(), ?)";
+		try (PreparedStatement stmt = conn.prepareStatement(sql);) {
+			stmt.setInt(1, -retentiondays);
+			try (ResultSet rs = stmt.executeQuery();) {
+				if (rs.next()) {
+					long watermark = rs.getLong(1);
+					return rs.wasNull() ? -1 : watermark;
+				} else {
+					return -1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Deletes all log rows up to the watermark, in batches of batchsize rows with a commit after each, so neither
+	 * the locks nor the undo of a single statement grow with the backlog.
+	 *
+	 * @param conn connection of the Hana user owning the PKLOG
+	 * @param tablename the PKLOG or a table specific change log
+	 * @param watermark the transaction id up to which all rows are deleted
+	 * @param batchsize maximum number of rows per delete statement
+	 * @return number of rows deleted
+	 * @throws SQLException in case the delete fails
+	 */
+	static long purge(Connection conn, String tablename, long watermark, int batchsize) throws SQLException {
+		return delete(conn, tablename, "transactionid <= ?", watermark, batchsize);
+	}
+
+	/**
+	 * Deletes all log rows older than the retention period, in batches like {@link #purge(Connection, String, long, int)}.
+	 * These are the rows a producer not running for that long did not read yet.
+	 *
+	 * @param conn connection of the Hana user owning the PKLOG
+	 * @param tablename the PKLOG or a table specific change log
+	 * @param retentiondays number of days to keep
+	 * @param batchsize maximum number of rows per delete statement
+	 * @return number of rows deleted
+	 * @throws SQLException in case the delete fails
+	 */
+	static long purgeRetention(Connection conn, String tablename, int retentiondays, int batchsize) throws SQLException {
+		return delete(conn, tablename, "change_ts < add_days(current_date, ?)", -retentiondays, batchsize);
+	}
+
+	private static long delete(Connection conn, String tablename, String condition, long value, int batchsize) throws SQLException {
+		String boundsql = "select max(transactionid) from (select top " + batchsize + " transactionid from \"" + tablename 
+				+ "\" where " + condition + " order by transactionid)";
+		String deletesql = "delete from \"" + tablename + "\" where " + condition + " and transactionid <= ?";
+		long rows = 0;
+		try (PreparedStatement boundstmt = conn.prepareStatement(boundsql);
+				PreparedStatement deletestmt = conn.prepareStatement(deletesql);) {
+			while (true) {
+				long bound;
+				boundstmt.setLong(1, value);
+				try (ResultSet rs = boundstmt.executeQuery();) {
+					if (!rs.next()) {
+						break;
+					}
+					bound = rs.getLong(1);
+					if (rs.wasNull()) {
+						break;
+					}
+				}
+				/*
+				 * All rows of one transaction are deleted together, hence a batch can be larger than the batchsize
+				 * if the batch boundary is in the middle of a big transaction.
+				 */
+				deletestmt.setLong(1, value);
+				deletestmt.setLong(2, bound);
+				rows += deletestmt.executeUpdate();
+				conn.commit();
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * Creates the partitions for the upcoming days and drops all partitions outside the retention period.
+	 * Past partitions whose rows are all at or below the watermark are dropped as well, but only if they end before the oldest
+	 * open write transaction started. Its rows are not visible to the max(transactionid) check and would be dropped with the
+	 * partition once it commits. Such partitions are left to the batched purge.
+	 *
+	 * @param conn connection of the Hana user owning the PKLOG
+	 * @param retentiondays number of days to keep at most
+	 * @param watermark the transaction id all producers have read up to, -1 if unknown
+	 * @throws ConnectorRuntimeException in case the partitions cannot be read
+	 */
+	static void maintainPartitions(Connection conn, int retentiondays, long watermark) throws ConnectorRuntimeException {
+		String sql = null;
+		try {
+			LocalDate today = getCurrentDate(conn);
+			LocalDate cutoff = today.minusDays(retentiondays);
+			List<LocalDate[]> partitions = getPartitions(conn);
+			if (partitions.size() == 0) {
+				return; // not partitioned, e.g. the conversion failed
+			}
+			LocalDateTime openfrom = watermark >= 0 ? getOldestOpenTransactionStart(conn) : null;
+			Set<LocalDate> existing = new HashSet<>();
+			for (LocalDate[] range : partitions) {
+				existing.add(range[0]);
+				if (!range[1].isAfter(cutoff) || (watermark >= 0 && !range[1].isAfter(today) 
+						&& (openfrom == null || !range[1].atStartOfDay().isAfter(openfrom)) && getMaxTransactionId(conn, range) <= watermark)) {
+					sql = "alter table " + TABLE_NAME + " drop partition '" + range[0] + "' <= values < '" + range[1] + "'";
+					execute(conn, sql);
+					logger.info("Dropped the outdated PKLOG partition for {}", range[0]);
+				}
+			}
+			for (LocalDate day = today; !day.isAfter(today.plusDays(PARTITIONS_AHEAD)); day = day.plusDays(1)) {
+				if (!existing.contains(day)) {
+					sql = "alter table " + TABLE_NAME + " add partition '" + day + "' <= values < '" + day.plusDays(1) + "'";
+					execute(conn, sql);
+					logger.debug("Added the PKLOG partition for {}", day);
+				}
+			}
+		} catch (SQLException e) {
+			throw new ConnectorRuntimeException("Reading the partitions of the PKLOG table failed", e,
+					"Execute the sql as the Hana user of the connection", sql);
+		}
+	}
+
+	/**
+	 * Multiple producers share the PKLOG, if one added or dropped the partition already the statement fails, which is fine.
+	 */
+	private static void execute(Connection conn, String sql) {
+		try (PreparedStatement stmt = conn.prepareStatement(sql);) {
+			stmt.execute();
+		} catch (SQLException e) {
+			logger.info("Changing the PKLOG partitions failed with \"{}\" - ignored: {}", e.getMessage(), sql);
+		}
+	}
+
+	/**
+	 * @return the highest transaction id of the partition's day, the range condition limits the read to this partition
+	 */
+	private static long getMaxTransactionId(Connection conn, LocalDate[] range) throws SQLException {
+		String sql = "select ifnull(max(transactionid), 0) from " + TABLE_NAME + " where change_ts >= ? and change_ts < ?";
+		try (PreparedStatement stmt = conn.prepareStatement(sql);) {
+			stmt.setDate(1, java.sql.Date.valueOf(range[0]));
+			stmt.setDate(2, java.sql.Date.valueOf(range[1]));
+			try (ResultSet rs = stmt.executeQuery();) {
+				rs.next();
+				return rs.getLong(1);
+			}
+		}
+	}
+
+	/**
+	 * The triggers write the log rows with the statement time, hence an open transaction's rows are not older than its start.
+	 * 
+	 * @return the start of the oldest open transaction that changed data, null if there is none, LocalDateTime.MIN if unknown
+	 */
+	private static LocalDateTime getOldestOpenTransactionStart(Connection conn) {
+		String sql = "select min(start_time) from m_transactions where update_transaction_id > 0 and connection_id <> current_connection";
+		try (PreparedStatement stmt = conn.prepareStatement(sql);) {
+			try (ResultSet rs = stmt.executeQuery();) {
+				if (rs.next()) {
+					Timestamp ts = rs.getTimestamp(1);
+					return ts == null ? null : ts.toLocalDateTime();
+				} else {
+					return null;
+				}
+			}
+		} catch (SQLException e) {
+			logger.info("Reading the open transactions failed with \"{}\", no PKLOG partitions are dropped before the retention ends", e.getMessage());
+			return LocalDateTime.MIN;
+		}
+	}
+
+	private static String getPartitionSpec(LocalDate from, LocalDate to) {
+		StringBuffer b = new StringBuffer();
+		b.append("partition by range (CHANGE_TS) (");
+		for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+			b.append("partition '");
+			b.append(day);
+			b.append("' <= values < '");
+			b.append(day.plusDays(1));
+			b.append("', ");
+		}
+		b.append("partition others)");
+		return b.toString();
+	}
+
+	private static LocalDate getCurrentDate(Connection conn) throws SQLException {
+		try (PreparedStatement stmt = conn.prepareStatement("select current_date from dummy");) {
+			try (ResultSet rs = stmt.executeQuery();) {
+				rs.next();
+				return rs.getDate(1).toLocalDate();
+			}
+		}
+	}
+
+	/**
+	 * @return the [min, max) day of each range partition, the OTHERS partition is not included
+	 */
+	private static List<LocalDate[]> getPartitions(Connection conn) throws SQLException {
+		String sql = "select level_1_range_min_value, level_1_range_max_value from table_partitions "
+				+ "where schema_name = current_user and table_name = ? and level_1_range_min_value is not null "
+				+ "and length(level_1_range_min_value) > 0 order by 1";
+		List<LocalDate[]> ret = new ArrayList<>();
+		try (PreparedStatement stmt = conn.prepareStatement(sql);) {
+			stmt.setString(1, TABLE_NAME);
+			try (ResultSet rs = stmt.executeQuery();) {
+				while (rs.next()) {
+					// the values are returned as timestamp strings, the first ten characters are the date
+					ret.add(new LocalDate[] {
+							LocalDate.parse(rs.getString(1).substring(0, 10)),
+							LocalDate.parse(rs.getString(2).substring(0, 10))});
+				}
+			}
+		}
+		return ret;
+	}
+
+}
@@ -0,0 +1,48 @@
+package io.rtdi.bigdata.hanaconnector;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A child table of a business object, e.g. the sales order items VBAP of the sales order VBAK.<br>
+ * The joincolumns map the child columns to the primary key columns of the root table. They have to be part of the
+ * child's primary key, so a change logged for a child row, even a deleted one, can be translated into the root key.
+ * The rows of the child are added to the root record as array named after the child mapping.<br>
+ * The child has its own triggers and change view, its pollclass is the one of the root mapping.
+ *
+ */
+public class ChildTableMapping extends HanaTableMapping {
+	private Map<String, String> joincolumns; // child column -> root pk column
+
+	public ChildTableMapping() {
+		super();
+	}
+
+	/**
+	 * @return the child column per root primary key column
+	 */
+	public Map<String, String> getJoincolumns() {
+		return joincolumns;
+	}
+
+	public void setJoincolumns(Map<String, String> joincolumns) {
+		this.joincolumns = joincolumns;
+	}
+
+	/**
+	 * @param rootcolumn a primary key column of the root table
+	 * @return the child column joined to it or null
+	 */
+	@JsonIgnore
+	public String getChildColumn(String rootcolumn) {
+		if (joincolumns != null) {
+			for (Map.Entry<String, String> e : joincolumns.entrySet()) {
+				if (rootcolumn.equals(e.getValue())) {
+					return e.getKey();
+				}
+			}
+		}
+		return null;
+	}
+}
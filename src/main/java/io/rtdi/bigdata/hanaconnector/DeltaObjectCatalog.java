@@ -0,0 +1,205 @@
+package io.rtdi.bigdata.hanaconnector;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.rtdi.bigdata.connector.connectorframework.exceptions.ConnectorRuntimeException;
+
+/**
+ * The existing triggers, change views and change log tables plus the fingerprints of the DDL they were deployed with.
+ * All are read with one query per object type for all mappings at once, so a restart does not query the catalog per table.
+ * An object is redeployed only if it does not exist or its generated DDL has a different fingerprint than the one stored
+ * in the DELTAOBJECTS table.<br>
+ * The instance is shared by the parallel startup tasks, each task deploys the objects of different source tables.
+ *
+ */
+class DeltaObjectCatalog {
+	private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+	private final Map<String, ExistingTrigger> triggers = new ConcurrentHashMap<>();
+	private final Set<String> views = ConcurrentHashMap.newKeySet();
+	private final Set<String> tables = ConcurrentHashMap.newKeySet();
+
+	private DeltaObjectCatalog() {
+	}
+
+	/**
+	 * @param conn connection of the Hana user owning the change objects
+	 * @return the catalog of all change objects of this user
+	 * @throws ConnectorRuntimeException in case the catalog cannot be read
+	 */
+	static DeltaObjectCatalog read(Connection conn) throws ConnectorRuntimeException {
+		DeltaObjectCatalog catalog = new DeltaObjectCatalog();
+		String sql = "select schema_name, table_name, object_name, fingerprint from " + ChangeLogTable.DELTAOBJECTS_TABLE_NAME;
+		try {
+			try (PreparedStatement stmt = conn.prepareStatement(sql);) {
+				ResultSet rs = stmt.executeQuery();
+				while (rs.next()) {
+					catalog.fingerprints.put(getKey(rs.getString(1), rs.getString(2), rs.getString(3)), rs.getString(4));
+				}
+			}
+			sql = "select subject_table_schema, subject_table_name, right(trigger_name, 1), schema_name, trigger_name, triggered_action_level, " +
+					"locate(definition, '" + HanaTableMapping.CHANGE_LOG_SUFFIX + "\"') from triggers " +
+					"where trigger_name like subject_table_name || '\\_t\\__' escape '\\'";
+			try (PreparedStatement stmt = conn.prepareStatement(sql);) {
+				ResultSet rs = stmt.executeQuery();
+				while (rs.next()) {
+					catalog.triggers.put(getKey(rs.getString(1), rs.getString(2), rs.getString(3)),
+							new ExistingTrigger(rs.getString(4), rs.getString(5),
+									HanaTableMapping.TRIGGERTYPE_STATEMENT.equals(rs.getString(6)), rs.getInt(7) > 0));
+				}
+			}
+			sql = "select view_name from views where schema_name = current_user and view_name like '%\\_CHANGE\\_VIEW' escape '\\'";
+			try (PreparedStatement stmt = conn.prepareStatement(sql);) {
+				ResultSet rs = stmt.executeQuery();
+				while (rs.next()) {
+					catalog.views.add(rs.getString(1));
+				}
+			}
+			sql = "select table_name from tables where schema_name = current_user and table_name like '%\\_CHANGE\\_LOG' escape '\\'";
+			try (PreparedStatement stmt = conn.prepareStatement(sql);) {
+				ResultSet rs = stmt.executeQuery();
+				while (rs.next()) {
+					catalog.tables.add(rs.getString(1));
+				}
+			}
+			return catalog;
+		} catch (SQLException e) {
+			throw new ConnectorRuntimeException("Reading the existing change objects failed in the database", e,
+					"Execute the sql as the Hana user of the connection", sql);
+		}
+	}
+
+	/**
+	 * @param ddl the generated create statement
+	 * @return the SHA-256 of the statement as hex string
+	 */
+	static String getFingerprint(String ddl) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(ddl.getBytes(StandardCharsets.UTF_8));
+			StringBuilder b = new StringBuilder(hash.length * 2);
+			for (byte x : hash) {
+				b.append(Character.forDigit((x >> 4) & 0xF, 16));
+				b.append(Character.forDigit(x & 0xF, 16));
+			}
+			return b.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("Every Java runtime has to support SHA-256", e);
+		}
+	}
+
+	/**
+	 * @param schemaname source schema
+	 * @param tablename source table
+	 * @param objectname name of the trigger or view
+	 * @return the fingerprint of the deployed DDL or null if not known
+	 */
+	String getFingerprint(String schemaname, String tablename, String objectname) {
+		return fingerprints.get(getKey(schemaname, tablename, objectname));
+	}
+
+	/**
+	 * Records the fingerprint of a deployed object. The caller commits.
+	 *
+	 * @param conn connection of the Hana user owning the change objects
+	 * @param schemaname source schema
+	 * @param tablename source table
+	 * @param objectname name of the trigger or view
+	 * @param fingerprint the fingerprint of the deployed DDL
+	 * @throws SQLException in case the fingerprint cannot be stored
+	 */
+	void setFingerprint(Connection conn, String schemaname, String tablename, String objectname, String fingerprint) throws SQLException {
+		String sql = "upsert " + ChangeLogTable.DELTAOBJECTS_TABLE_NAME + " (SCHEMA_NAME, TABLE_NAME, OBJECT_NAME, FINGERPRINT, DEPLOY_TS) "
+				+ "values (?, ?, ?, ?, current_utctimestamp) with primary key";
+		try (PreparedStatement stmt = conn.prepareStatement(sql);) {
+			stmt.setString(1, schemaname);
+			stmt.setString(2, tablename);
+			stmt.setString(3, objectname);
+			stmt.setString(4, fingerprint);
+			stmt.execute();
+		}
+		fingerprints.put(getKey(schemaname, tablename, objectname), fingerprint);
+	}
+
+	/**
+	 * @param schemaname source schema
+	 * @param tablename source table
+	 * @param suffix i, u or d
+	 * @return the change logging trigger of this table and operation or null
+	 */
+	ExistingTrigger getTrigger(String schemaname, String tablename, String suffix) {
+		return triggers.get(getKey(schemaname, tablename, suffix));
+	}
+
+	/**
+	 * Records a newly created trigger, so other mappings of the same table do not create it again.
+	 *
+	 * @param schemaname source schema
+	 * @param tablename source table
+	 * @param suffix i, u or d
+	 * @param triggerschema schema the trigger got created in
+	 * @param triggername name of the trigger
+	 * @param statementlevel true for a statement level trigger
+	 * @param tablechangelog true if the trigger writes into the table specific change log
+	 */
+	void addTrigger(String schemaname, String tablename, String suffix, String triggerschema, String triggername, boolean statementlevel, boolean tablechangelog) {
+		triggers.put(getKey(schemaname, tablename, suffix), new ExistingTrigger(triggerschema, triggername, statementlevel, tablechangelog));
+	}
+
+	boolean hasView(String viewname) {
+		return views.contains(viewname);
+	}
+
+	void addView(String viewname) {
+		views.add(viewname);
+	}
+
+	boolean hasTable(String tablename) {
+		return tables.contains(tablename);
+	}
+
+	void addTable(String tablename) {
+		tables.add(tablename);
+	}
+
+	private static String getKey(String schemaname, String tablename, String objectname) {
+		return schemaname + "\"." + tablename + "\"." + objectname;
+	}
+
+	static class ExistingTrigger {
+		private final String schemaname;
+		private final String triggername;
+		private final boolean statementlevel;
+		private final boolean tablechangelog;
+
+		private ExistingTrigger(String schemaname, String triggername, boolean statementlevel, boolean tablechangelog) {
+			this.schemaname = schemaname;
+			this.triggername = triggername;
+			this.statementlevel = statementlevel;
+			this.tablechangelog = tablechangelog;
+		}
+
+		String getSchemaname() {
+			return schemaname;
+		}
+
+		String getTriggername() {
+			return triggername;
+		}
+
+		boolean isStatementLevel() {
+			return statementlevel;
+		}
+
+		boolean isTableChangeLog() {
+			return tablechangelog;
+		}
+	}
+}
@@ -7,19 +7,31 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 import org.apache.avro.Schema;
-import org.apache.avro.SchemaBuilderException;
 
 import io.rtdi.bigdata.connector.connectorframework.BrowsingService;
 import io.rtdi.bigdata.connector.connectorframework.controller.ConnectionController;
 import io.rtdi.bigdata.connector.connectorframework.entity.TableEntry;
 import io.rtdi.bigdata.connector.connectorframework.exceptions.ConnectorRuntimeException;
-import io.rtdi.bigdata.connector.pipeline.foundation.utils.FileNameEncoder;
 
 public class HanaBrowse extends BrowsingService<HanaConnectionProperties> {
 	
+	/**
+	 * How long the result of the privilege query is reused
+	 */
+	private static final long CATALOG_CACHE_MILLIS = 60000L;
+	private static final Comparator<TableImport> CATALOG_ORDER = Comparator.comparing(TableImport::getHanaschemaname).thenComparing(TableImport::getHanatablename);
+	/**
+	 * The table list per connection directory, shared by all browser instances of that connection
+	 */
+	private static final Map<String, CachedCatalog> catalogs = new ConcurrentHashMap<>();
 	private File bopath;
 	private Connection conn;
 
@@ -46,16 +58,11 @@ public class HanaBrowse extends BrowsingService<HanaConnectionProperties> {
 
 	@Override
 	public List<TableEntry> getRemoteSchemaNames() throws IOException {
-		if (bopath.isDirectory()) {
-			File[] files = bopath.listFiles();
+		List<String> names = MappingCache.getCache(bopath).getNames();
+		if (names != null) {
 			List<TableEntry> ret = new ArrayList<>();
-			if (files != null) {
-				for (File f : files) {
-					if (f.getName().endsWith(".json") && f.isFile()) {
-						String name = FileNameEncoder.decodeName(f.getName());
-						ret.add(new TableEntry(name.substring(0, name.length()-5))); // remove the .json ending
-					}
-				}
+			for (String name : names) {
+				ret.add(new TableEntry(name));
 			}
 			return ret;
 		} else {
@@ -65,24 +72,121 @@ public class HanaBrowse extends BrowsingService<HanaConnectionProperties> {
 
 	@Override
 	public Schema getRemoteSchemaOrFail(String name) throws IOException {
-		HanaTableMapping n1 = HanaTableMapping.readDefinition(null, name, null, bopath);
-		try {
-			return n1.getAvroSchema();
-		} catch (SchemaBuilderException e) {
-			throw new ConnectorRuntimeException("Schema cannot be parsed", e, null, null);
-		}
+		return MappingCache.getCache(bopath).getSchema(name);
 	}
 
+	/**
+	 * @param name mapping name
+	 * @return the cached mapping definition, do not modify it
+	 * @throws IOException in case the mapping cannot be read
+	 */
 	public HanaTableMapping getBusinessObject(String name) throws IOException {
-		HanaTableMapping n1 = HanaTableMapping.readDefinition(null, name, null, bopath);
-		return n1;
+		return MappingCache.getCache(bopath).getMapping(name);
+	}
+
+	/**
+	 * Saves the mapping definition and updates the cache
+	 * 
+	 * @param mapping the mapping definition
+	 * @throws IOException in case the mapping cannot be written
+	 */
+	public void setBusinessObject(HanaTableMapping mapping) throws IOException {
+		MappingCache.getCache(bopath).put(mapping);
 	}
 
 	public File getBusinessObjectDirectory() {
 		return bopath;
 	}
 	
+	/**
+	 * @return all tables the user can create triggers on
+	 * @throws ConnectorRuntimeException in case the catalog cannot be read
+	 */
 	public List<TableImport> getHanaTables() throws ConnectorRuntimeException {
+		List<TableImport> ret = new ArrayList<>();
+		for (TableImport t : getCatalog()) {
+			ret.add(new TableImport(t.getHanaschemaname(), t.getHanatablename()));
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns one page of the tables the user can create triggers on, sorted by schema and table name.
+	 * 
+	 * @param schemapattern LIKE pattern (% and _ as wildcards, case insensitive) for the schema name or null
+	 * @param tablepattern LIKE pattern for the table name or null
+	 * @param afterschema the nextschema of the previous page or null for the first page
+	 * @param aftertable the nexttable of the previous page
+	 * @param limit maximum number of tables returned
+	 * @return the page along with the key to read the next page with
+	 * @throws ConnectorRuntimeException in case the catalog cannot be read
+	 */
+	public TablePage getHanaTables(String schemapattern, String tablepattern, String afterschema, String aftertable, int limit) throws ConnectorRuntimeException {
+		List<TableImport> tables = getCatalog();
+		int start = 0;
+		if (afterschema != null) {
+			TableImport key = new TableImport(afterschema, aftertable == null ? "" : aftertable);
+			start = Collections.binarySearch(tables, key, CATALOG_ORDER);
+			start = start < 0 ? -start - 1 : start + 1;
+		}
+		Pattern schemafilter = getLikePattern(schemapattern);
+		Pattern tablefilter = getLikePattern(tablepattern);
+		TablePage page = new TablePage();
+		for (int i = start; i < tables.size(); i++) {
+			TableImport t = tables.get(i);
+			if ((schemafilter == null || schemafilter.matcher(t.getHanaschemaname()).matches()) &&
+					(tablefilter == null || tablefilter.matcher(t.getHanatablename()).matches())) {
+				if (page.tables.size() == limit) {
+					TableImport last = page.tables.get(limit - 1);
+					page.nextschema = last.getHanaschemaname();
+					page.nexttable = last.getHanatablename();
+					break;
+				}
+				page.tables.add(new TableImport(t.getHanaschemaname(), t.getHanatablename()));
+			}
+		}
+		return page;
+	}
+
+	private static Pattern getLikePattern(String like) {
+		if (like == null || like.isEmpty() || like.equals("%")) {
+			return null;
+		}
+		StringBuilder b = new StringBuilder();
+		StringBuilder literal = new StringBuilder();
+		for (char c : like.toCharArray()) {
+			if (c == '%' || c == '_') {
+				if (literal.length() != 0) {
+					b.append(Pattern.quote(literal.toString()));
+					literal.setLength(0);
+				}
+				b.append(c == '%' ? ".*" : ".");
+			} else {
+				literal.append(c);
+			}
+		}
+		if (literal.length() != 0) {
+			b.append(Pattern.quote(literal.toString()));
+		}
+		return Pattern.compile(b.toString(), Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+	}
+
+	/**
+	 * The privilege query is expensive on large systems, hence its result is reused for CATALOG_CACHE_MILLIS.
+	 * 
+	 * @return the sorted and shared list of tables, do not modify
+	 * @throws ConnectorRuntimeException in case the catalog cannot be read
+	 */
+	private List<TableImport> getCatalog() throws ConnectorRuntimeException {
+		CachedCatalog c = catalogs.get(bopath.getAbsolutePath());
+		if (c == null || System.currentTimeMillis() - c.readtime > CATALOG_CACHE_MILLIS) {
+			c = new CachedCatalog(readHanaTables());
+			catalogs.put(bopath.getAbsolutePath(), c);
+		}
+		return c.tables;
+	}
+
+	private List<TableImport> readHanaTables() throws ConnectorRuntimeException {
 		String sql = "SELECT schema_name, table_name FROM tables \r\n"
 				+ "WHERE schema_name IN (SELECT schema_name FROM EFFECTIVE_PRIVILEGES WHERE user_name = CURRENT_USER AND PRIVILEGE = 'TRIGGER' AND object_type = 'SCHEMA')\r\n"
 				+ "OR (schema_name, table_name) IN (SELECT schema_name, object_name FROM EFFECTIVE_PRIVILEGES WHERE user_name = CURRENT_USER AND PRIVILEGE = 'TRIGGER' AND object_type = 'TABLE')\r\n"
@@ -96,7 +200,8 @@ public class HanaBrowse extends BrowsingService<HanaConnectionProperties> {
 				String tablename = rs.getString(2);
 				sortedlist.add(new TableImport(schemaname, tablename));
 			}
-			return sortedlist;
+			sortedlist.sort(CATALOG_ORDER); // the database collation might differ from the Java string order the page keys rely on
+			return Collections.unmodifiableList(sortedlist);
 		} catch (SQLException e) {
 			throw new ConnectorRuntimeException("Reading all tables of the TABLES view failed", e, 
 					"Execute the sql as Hana user \"" + getConnectionProperties().getUsername() + "\"", sql);
@@ -107,6 +212,39 @@ public class HanaBrowse extends BrowsingService<HanaConnectionProperties> {
 		return conn;
 	}
 	
+	public static class TablePage {
+		private List<TableImport> tables = new ArrayList<>();
+		private String nextschema;
+		private String nexttable;
+
+		public List<TableImport> getTables() {
+			return tables;
+		}
+
+		/**
+		 * @return the afterschema parameter for the next page or null if this is the last page
+		 */
+		public String getNextschema() {
+			return nextschema;
+		}
+
+		/**
+		 * @return the aftertable parameter for the next page or null if this is the last page
+		 */
+		public String getNexttable() {
+			return nexttable;
+		}
+	}
+
+	private static class CachedCatalog {
+		private final List<TableImport> tables;
+		private final long readtime = System.currentTimeMillis();
+
+		private CachedCatalog(List<TableImport> tables) {
+			this.tables = tables;
+		}
+	}
+
 	public static class TableImport {
 		private String hanatable;
 		private String hanaschema;
@@ -178,7 +316,6 @@ public class HanaBrowse extends BrowsingService<HanaConnectionProperties> {
 
 	@Override
 	public void deleteRemoteSchemaOrFail(String remotename) throws IOException {
-		File file = new File(bopath, remotename + ".json");
-		java.nio.file.Files.delete(file.toPath());
+		MappingCache.getCache(bopath).remove(remotename);
 	}
 }
@@ -0,0 +1,314 @@
+package io.rtdi.bigdata.hanaconnector;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.rtdi.bigdata.connector.connectorframework.exceptions.ConnectorCallerException;
+
+/**
+ * A pool of physical Hana connections per connection definition.<br>
+ * The borrowed connection is a proxy, closing it rolls back any open transaction and returns the physical
+ * connection to the pool. Connections idle for longer than the validation interval are checked before being
+ * handed out, connections idle for longer than the idle timeout are closed by a background task.
+ *
+ */
+public class HanaConnectionPool {
+	private static final Logger logger = LogManager.getLogger(HanaConnectionPool.class);
+	private static final Map<String, HanaConnectionPool> pools = new ConcurrentHashMap<>();
+	private static final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread t = new Thread(r, "HanaConnectionPool-Evictor");
+		t.setDaemon(true);
+		return t;
+	});
+	private static final int VALIDATION_TIMEOUT = 5; // seconds
+	private static final long BORROW_TIMEOUT = 60; // seconds
+
+	static {
+		evictor.scheduleWithFixedDelay(() -> {
+			for (HanaConnectionPool pool : pools.values()) {
+				pool.evictIdle();
+			}
+		}, 30, 30, TimeUnit.SECONDS);
+	}
+
+	private final String name;
+	private final String jdbcurl;
+	private final String user;
+	private final String passwd;
+	private final int poolsize;
+	private final long validationinterval;
+	private final long idletimeout;
+	private final Semaphore permits;
+	private final Deque<PooledConnection> idle = new ArrayDeque<>();
+	private volatile boolean closed = false;
+
+	private final AtomicLong borrowcount = new AtomicLong();
+	private final AtomicLong waittimetotal = new AtomicLong();
+	private final AtomicLong waittimemax = new AtomicLong();
+	private final AtomicLong createdcount = new AtomicLong();
+	private final AtomicLong evictedcount = new AtomicLong();
+
+	private HanaConnectionPool(HanaConnectionProperties props) {
+		this.name = props.getName();
+		this.jdbcurl = props.getJDBCURL();
+		this.user = props.getUsername();
+		this.passwd = props.getPassword();
+		this.poolsize = getPoolSize(props);
+		this.validationinterval = TimeUnit.SECONDS.toMillis(props.getPoolValidationInterval());
+		this.idletimeout = TimeUnit.SECONDS.toMillis(props.getPoolIdleTimeout());
+		this.permits = new Semaphore(poolsize, true);
+	}
+
+	/**
+	 * @param props connection definition
+	 * @return the pool for this connection definition, a new one if the definition got changed since
+	 */
+	public static HanaConnectionPool getPool(HanaConnectionProperties props) {
+		return pools.compute(props.getName(), (k, pool) -> {
+			if (pool == null || !pool.matches(props)) {
+				if (pool != null) {
+					logger.info("Connection properties of \"{}\" got changed, replacing the connection pool", k);
+					pool.close();
+				}
+				return new HanaConnectionPool(props);
+			} else {
+				return pool;
+			}
+		});
+	}
+
+	private boolean matches(HanaConnectionProperties props) {
+		return Objects.equals(jdbcurl, props.getJDBCURL())
+				&& Objects.equals(user, props.getUsername())
+				&& Objects.equals(passwd, props.getPassword())
+				&& poolsize == getPoolSize(props)
+				&& validationinterval == TimeUnit.SECONDS.toMillis(props.getPoolValidationInterval())
+				&& idletimeout == TimeUnit.SECONDS.toMillis(props.getPoolIdleTimeout());
+	}
+
+	private static int getPoolSize(HanaConnectionProperties props) {
+		return props.getPoolSize() > 0 ? props.getPoolSize() : 1;
+	}
+
+	/**
+	 * @return a connection with autocommit turned off, closing it returns it to the pool
+	 * @throws ConnectorCallerException in case no connection can be established or the pool is exhausted for too long
+	 */
+	public Connection getConnection() throws ConnectorCallerException {
+		long start = System.nanoTime();
+		try {
+			if (!permits.tryAcquire(BORROW_TIMEOUT, TimeUnit.SECONDS)) {
+				throw new ConnectorCallerException("All connections of the pool are in use", null,
+						"Increase the pool size of the connection, currently " + poolsize, jdbcurl);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ConnectorCallerException("Waiting for a free connection got interrupted", e, null, jdbcurl);
+		}
+		long waittime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		borrowcount.incrementAndGet();
+		waittimetotal.addAndGet(waittime);
+		waittimemax.accumulateAndGet(waittime, Math::max);
+		try {
+			PooledConnection c;
+			while ((c = pollIdle()) != null) {
+				if (isUsable(c)) {
+					return c.borrow();
+				} else {
+					closePhysical(c);
+				}
+			}
+			c = new PooledConnection(HanaConnectorFactory.getDatabaseConnection(jdbcurl, user, passwd));
+			createdcount.incrementAndGet();
+			return c.borrow();
+		} catch (SQLException e) {
+			permits.release();
+			throw new ConnectorCallerException("Failed to establish a database connection", e, null, jdbcurl);
+		} catch (RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	private synchronized PooledConnection pollIdle() {
+		return idle.pollFirst();
+	}
+
+	private boolean isUsable(PooledConnection c) {
+		try {
+			if (c.physical.isClosed()) {
+				return false;
+			} else if (System.currentTimeMillis() - c.lastused >= validationinterval) {
+				return c.physical.isValid(VALIDATION_TIMEOUT);
+			} else {
+				return true;
+			}
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private void release(PooledConnection c) {
+		try {
+			if (closed || c.physical.isClosed()) {
+				closePhysical(c);
+			} else {
+				c.physical.rollback();
+				if (c.physical.getAutoCommit()) {
+					c.physical.setAutoCommit(false);
+				}
+				c.lastused = System.currentTimeMillis();
+				synchronized (this) {
+					idle.addFirst(c); // most recently used first, so the tail ages and gets evicted
+				}
+			}
+		} catch (SQLException e) {
+			logger.info("Returning a connection to the pool failed, connection is closed", e);
+			closePhysical(c);
+		} finally {
+			permits.release();
+		}
+	}
+
+	private void evictIdle() {
+		long now = System.currentTimeMillis();
+		synchronized (this) {
+			Iterator<PooledConnection> iter = idle.descendingIterator();
+			while (iter.hasNext()) {
+				PooledConnection c = iter.next();
+				if (closed || now - c.lastused >= idletimeout) {
+					iter.remove();
+					closePhysical(c);
+					evictedcount.incrementAndGet();
+				}
+			}
+		}
+	}
+
+	private void closePhysical(PooledConnection c) {
+		try {
+			c.physical.close();
+		} catch (SQLException e) {
+			logger.info("Hana connection close failed - ignored", e);
+		}
+	}
+
+	private void close() {
+		closed = true;
+		evictIdle();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getPoolSize() {
+		return poolsize;
+	}
+
+	public int getActiveCount() {
+		return poolsize - permits.availablePermits();
+	}
+
+	public synchronized int getIdleCount() {
+		return idle.size();
+	}
+
+	public long getBorrowCount() {
+		return borrowcount.get();
+	}
+
+	public long getWaitTimeTotal() {
+		return waittimetotal.get();
+	}
+
+	public long getWaitTimeMax() {
+		return waittimemax.get();
+	}
+
+	public long getCreatedCount() {
+		return createdcount.get();
+	}
+
+	public long getEvictedCount() {
+		return evictedcount.get();
+	}
+
+	@Override
+	public String toString() {
+		return "HanaConnectionPool " + name + ": active=" + getActiveCount() + ", idle=" + getIdleCount() + ", max wait=" + getWaitTimeMax() + "ms";
+	}
+
+	private class PooledConnection {
+		private final Connection physical;
+		private volatile long lastused;
+
+		private PooledConnection(Connection physical) {
+			this.physical = physical;
+			this.lastused = System.currentTimeMillis();
+		}
+
+		private Connection borrow() {
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class}, new BorrowedConnection(this));
+		}
+	}
+
+	/**
+	 * Each borrow gets its own handle, so a handle that got closed cannot be used to access a connection that has been handed out again
+	 */
+	private class BorrowedConnection implements InvocationHandler {
+		private final PooledConnection pooled;
+		private boolean returned = false;
+
+		private BorrowedConnection(PooledConnection pooled) {
+			this.pooled = pooled;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "close":
+				if (!returned) {
+					returned = true;
+					release(pooled);
+				}
+				return null;
+			case "isClosed":
+				return returned || pooled.physical.isClosed();
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "Pooled " + pooled.physical.toString();
+			default:
+				if (returned) {
+					throw new SQLException("Connection has been returned to the pool already");
+				}
+				try {
+					return method.invoke(pooled.physical, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+			}
+		}
+	}
+}
@@ -8,12 +8,18 @@ public class HanaConnectionProperties extends ConnectionProperties {
 	private static final String JDBCURL = "hana.jdbcurl";
 	private static final String USERNAME = "hana.username";
 	private static final String PASSWORD = "hana.password";
+	private static final String POOLSIZE = "hana.poolsize";
+	private static final String POOLVALIDATIONINTERVAL = "hana.poolvalidationinterval";
+	private static final String POOLIDLETIMEOUT = "hana.poolidletimeout";
 
 	public HanaConnectionProperties(String name) {
 		super(name);
 		properties.addStringProperty(JDBCURL, "JDBC URL", "The JDBC URL to use for connecting to the Hana system", "sap-icon://target-group", "jdbc:sap://localhost:3xx15/yy", true);
 		properties.addStringProperty(USERNAME, "Username", "Hana database username", "sap-icon://target-group", null, true);
 		properties.addPasswordProperty(PASSWORD, "Password", "Password", "sap-icon://target-group", null, true);
+		properties.addIntegerProperty(POOLSIZE, "Pool size", "Maximum number of connections opened for this connection, shared by all producers and the UI. Each producer needs more than the largest of its parallelism settings", "sap-icon://target-group", 10, false);
+		properties.addIntegerProperty(POOLVALIDATIONINTERVAL, "Validation interval", "Connections idle for more than n seconds are validated before being used", "sap-icon://target-group", 30, false);
+		properties.addIntegerProperty(POOLIDLETIMEOUT, "Idle timeout", "Connections idle for more than n seconds are closed", "sap-icon://target-group", 600, false);
 	}
 
 	public String getJDBCURL() {
@@ -28,6 +34,18 @@ public class HanaConnectionProperties extends ConnectionProperties {
 		return properties.getPasswordPropertyValue(PASSWORD);
 	}
 	
+	public int getPoolSize() {
+		return properties.getIntPropertyValue(POOLSIZE);
+	}
+	
+	public int getPoolValidationInterval() {
+		return properties.getIntPropertyValue(POOLVALIDATIONINTERVAL);
+	}
+	
+	public int getPoolIdleTimeout() {
+		return properties.getIntPropertyValue(POOLIDLETIMEOUT);
+	}
+	
 	public void setJDBCURL(String value) throws PropertiesException {
 		properties.setProperty(JDBCURL, value);
 	}
@@ -40,4 +58,16 @@ public class HanaConnectionProperties extends ConnectionProperties {
 		properties.setProperty(PASSWORD, value);
 	}
 
+	public void setPoolSize(int value) throws PropertiesException {
+		properties.setProperty(POOLSIZE, value);
+	}
+
+	public void setPoolValidationInterval(int value) throws PropertiesException {
+		properties.setProperty(POOLVALIDATIONINTERVAL, value);
+	}
+
+	public void setPoolIdleTimeout(int value) throws PropertiesException {
+		properties.setProperty(POOLIDLETIMEOUT, value);
+	}
+
 }
@@ -16,6 +16,7 @@ import io.rtdi.bigdata.connector.pipeline.foundation.exceptions.PropertiesExcept
 
 public class HanaConnectorFactory extends ConnectorFactory<HanaConnectionProperties> 
 implements IConnectorFactoryProducer<HanaConnectionProperties, HanaProducerProperties> {
+	private static volatile boolean driverloaded = false;
 
 	public HanaConnectorFactory() {
 		super("HanaConnector");
@@ -46,23 +47,36 @@ implements IConnectorFactoryProducer<HanaConnectionProperties, HanaProducerPrope
 		return true;
 	}
 
+	/**
+	 * @param props connection definition
+	 * @return a connection borrowed from the pool of this connection definition, close it to return it to the pool
+	 * @throws ConnectorCallerException in case no connection can be established
+	 */
 	static Connection getDatabaseConnection(HanaConnectionProperties props) throws ConnectorCallerException {
-		try {
-			return getDatabaseConnection(props.getJDBCURL(), props.getUsername(), props.getPassword());
-		} catch (SQLException e) {
-			throw new ConnectorCallerException("Failed to establish a database connection", e, null, props.getJDBCURL());
-		}
+		return HanaConnectionPool.getPool(props).getConnection();
 	}
 	
+	/**
+	 * Opens a new physical connection, not taken from any pool.
+	 * 
+	 * @param jdbcurl Hana JDBC URL
+	 * @param user database user
+	 * @param passwd password
+	 * @return the connection with autocommit turned off
+	 * @throws SQLException in case the connection cannot be established
+	 */
 	static Connection getDatabaseConnection(String jdbcurl, String user, String passwd) throws SQLException {
-        try {
-            Class.forName("com.sap.db.jdbc.Driver");
-            Connection conn = DriverManager.getConnection(jdbcurl, user, passwd);
-            conn.setAutoCommit(false);
-            return conn;
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("No Hana JDBC driver library found");
-        }
+		if (!driverloaded) {
+			try {
+				Class.forName("com.sap.db.jdbc.Driver");
+				driverloaded = true;
+			} catch (ClassNotFoundException e) {
+				throw new SQLException("No Hana JDBC driver library found");
+			}
+		}
+		Connection conn = DriverManager.getConnection(jdbcurl, user, passwd);
+		conn.setAutoCommit(false);
+		return conn;
 	}
 
 }
@@ -1,17 +1,29 @@
 package io.rtdi.bigdata.hanaconnector; 
 
+import java.io.File;
 import java.io.IOException;
 import java.sql.Connection;
-import java.sql.JDBCType;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.avro.Schema;
 import org.apache.avro.SchemaBuilderException;
@@ -24,7 +36,10 @@ import io.rtdi.bigdata.connector.pipeline.foundation.TopicHandler;
 import io.rtdi.bigdata.connector.pipeline.foundation.TopicName;
 import io.rtdi.bigdata.connector.pipeline.foundation.avro.JexlGenericData.JexlRecord;
 import io.rtdi.bigdata.connector.pipeline.foundation.exceptions.PropertiesException;
-import io.rtdi.bigdata.connector.pipeline.foundation.utils.AvroNameEncoder;
+import io.rtdi.bigdata.hanaconnector.ParallelReader.ExtractedRow;
+import io.rtdi.bigdata.hanaconnector.ParallelReader.ParameterBinder;
+import io.rtdi.bigdata.hanaconnector.ParallelReader.RowQueue;
+import io.rtdi.bigdata.hanaconnector.RowConverter.RecordCursor;
 import io.rtdi.bigdata.kafka.avro.RowType;
 
 /**
@@ -48,9 +63,47 @@ public class HanaProducer extends Producer<HanaConnectionProperties, HanaProduce
 	 * As a master table can be used in multiple schemas, the Map returns a List.
 	 */
 	private Map<String, List<HanaTableMapping>> tabledirectory = new HashMap<>();
+	/**
+	 * A parallel initial load splits the table into more chunks than connections so a slow chunk does not hold up the others
+	 */
+	private static final int CHUNKS_PER_CONNECTION = 4;
+	private ParallelReader deltareader = null;
+	/**
+	 * The prepared statements of the producer connection, recreated whenever the connection is
+	 */
+	private StatementCache stmtcache = null;
+	/**
+	 * For a transaction id key, all log entries of later transactions have a CHANGE_TS of the value or later.
+	 * This allows Hana to prune the PKLOG partitions outside the window. After a restart the values are unknown
+	 * and all partitions are read once.
+	 */
+	private TreeMap<Long, Timestamp> windowstarts = new TreeMap<>();
+	private static final Timestamp NO_WINDOWSTART = new Timestamp(0);
+	/**
+	 * When each poll class got read up to the committed transaction id the last time
+	 */
+	private Map<PollClass, Long> lastread = new EnumMap<>(PollClass.class);
+	/**
+	 * The position last written into the DELTAINFO table
+	 */
+	private long recordedposition = -1;
+	/**
+	 * The last poll was limited by the max delta size and more changes are waiting to be read
+	 */
+	private boolean backlog = false;
+	/**
+	 * The adaptive poll interval in seconds, -1 when the fixed poll interval is used
+	 */
+	private long nextpollinterval = -1;
+	/**
+	 * The mappings read in parallel by createTopiclist(), createSchema() takes them from here
+	 */
+	private Map<String, HanaTableMapping> preparedmappings = new ConcurrentHashMap<>();
+	private ProducerMetrics metrics;
 	
 	public HanaProducer(ProducerInstanceController instance) throws PropertiesException {
 		super(instance);
+		validatePoolSize();
 		setConnection();
 		try {
 			username = conn.getSchema();
@@ -59,11 +112,33 @@ public class HanaProducer extends Producer<HanaConnectionProperties, HanaProduce
 					null, null);
 		}
 		logger.debug("Connected user is {}", username);
+		metrics = ProducerMetrics.register(getConnectionProperties().getName(), getProducerProperties().getName());
 	}
 	
+	/**
+	 * The producer keeps one connection and borrows up to the largest of its parallelism settings in addition, all from
+	 * the pool of the connection. With a smaller pool the parallel tasks wait for each other until the borrow times out.
+	 * 
+	 * @throws ConnectorRuntimeException in case the pool size is not larger than the parallelism
+	 */
+	private void validatePoolSize() throws ConnectorRuntimeException {
+		HanaProducerProperties props = getProducerProperties();
+		int parallelism = Math.max(props.getInitialLoadParallelism(), Math.max(props.getDeltaParallelism(), props.getStartupParallelism()));
+		int poolsize = HanaConnectionPool.getPool(getConnectionProperties()).getPoolSize();
+		if (poolsize < 1 + parallelism) {
+			throw new ConnectorRuntimeException("The pool size of the connection must be larger than the parallelism of the producer", null,
+					"Increase the pool size of the connection to at least " + (1 + parallelism) + " or lower the parallelism settings of the producer",
+					"Pool size " + poolsize + ", parallelism " + parallelism);
+		}
+	}
+
 	private void setConnection() throws ConnectorRuntimeException {
 		HanaConnectionProperties props = (HanaConnectionProperties) instance.getConnectionProperties();
+		if (stmtcache != null) {
+			stmtcache.close();
+		}
 		conn = HanaConnectorFactory.getDatabaseConnection(props);
+		stmtcache = new StatementCache(conn);
 		try {
 			conn.setAutoCommit(false);
 		} catch (SQLException e) {
@@ -82,33 +157,62 @@ public class HanaProducer extends Producer<HanaConnectionProperties, HanaProduce
 			if (conn == null || conn.isClosed()) {
 				setConnection();
 			}
-			if (!HanaTableMapping.checktable("PKLOG", conn)) {
-				
-				sql = "create column table PKLOG ("
-						+ "CHANGE_TS timestamp, "
-						+ "SCHEMA_NAME nvarchar(256), "
-						+ "CHANGE_TYPE varchar(1), "
-						+ "PK1 nvarchar(256), "
-						+ "PK2 nvarchar(256), "
-						+ "PK3 nvarchar(256), "
-						+ "PK4 nvarchar(256), "
-						+ "PK5 nvarchar(256), "
-						+ "PK6 nvarchar(256), "
-						+ "TRANSACTIONID bigint, "
-						+ "TRANSACTION_SEQ integer, "
-						+ "TABLE_NAME nvarchar(256) )";
-				try (PreparedStatement stmt = conn.prepareStatement(sql);) {
-					stmt.execute();
-				}
-				logger.debug("Created the PKLOG table: {}", sql);
-			}
+			long start = System.currentTimeMillis();
+			ChangeLogTable.create(conn, getProducerProperties().getPKLogRetention());
 			List<String> sources = getProducerProperties().getSourceSchemas();
 			if (sources != null) {
+				/*
+				 * The mappings of the same source table share the triggers, hence are processed by the same task, including the
+				 * mappings whose child tables are the root or child table of another mapping
+				 */
+				List<HanaTableMapping> roots = new ArrayList<>();
 				for (String sourceschema : sources) {
-					HanaTableMapping obj = schemadirectory.get(sourceschema);
-					obj.createDeltaObjects();
+					roots.add(schemadirectory.get(sourceschema));
+				}
+				/*
+				 * All producers of the connection share the triggers, hence the mapping files of the others are considered as well
+				 */
+				List<HanaTableMapping> others = new ArrayList<>();
+				boolean complete = true;
+				File directory;
+				try (HanaBrowse browser = new HanaBrowse(getConnectionController());) {
+					directory = browser.getBusinessObjectDirectory();
 				}
+				MappingCache cache = MappingCache.getCache(directory);
+				List<String> names = cache.getNames();
+				if (names != null) {
+					for (String name : names) {
+						if (!sources.contains(name)) {
+							try {
+								others.add(cache.getMapping(name));
+							} catch (PropertiesException e) {
+								logger.info("The mapping file {} cannot be read, the triggers do not filter rows and columns", name, e);
+								complete = false;
+							}
+						}
+					}
+				}
+				DeltaObjectCatalog catalog = DeltaObjectCatalog.read(conn);
+				List<Callable<Void>> tasks = new ArrayList<>();
+				for (List<HanaTableMapping> mappings : SourceTable.group(roots, others, complete)) {
+					tasks.add(() -> {
+						try (Connection ddlconn = HanaConnectorFactory.getDatabaseConnection(getConnectionProperties());) {
+							for (HanaTableMapping obj : mappings) {
+								obj.createDeltaObjects(ddlconn, catalog);
+							}
+							ddlconn.commit();
+						}
+						return null;
+					});
+				}
+				runParallel(tasks, "Startup-" + getProducerProperties().getName());
 			}
+			/*
+			 * The purge of other producers sharing the PKLOG must keep the rows this producer has not read yet
+			 */
+			ChangeLogTable.initPosition(conn, getProducerProperties().getName(), Long.parseLong(getCurrentTransactionId()));
+			conn.commit();
+			logger.info("Startup phase change logging took {}ms for {} mappings", System.currentTimeMillis() - start, sources == null ? 0 : sources.size());
 		} catch (SQLException e) {
 			throw new ConnectorRuntimeException("Creating the Change Logging objects failed in the database", e, 
 					"Execute the sql as Hana user \"" + getConnectionProperties().getUsername() + "\"", sql);
@@ -122,6 +226,10 @@ public class HanaProducer extends Producer<HanaConnectionProperties, HanaProduce
 		topic = getPipelineAPI().getTopicOrCreate(t, 1, (short) 1);
 		List<String> sources = getProducerProperties().getSourceSchemas();
 		if (sources != null) {
+			long start = System.currentTimeMillis();
+			prepareMappings(sources);
+			logger.info("Startup phase reading mappings took {}ms for {} mappings", System.currentTimeMillis() - start, sources.size());
+			start = System.currentTimeMillis();
 			for (String sourcetablename : sources) {
 				SchemaHandler handler = getSchemaHandler(sourcetablename);
 				if (handler != null) {
@@ -129,6 +237,65 @@ public class HanaProducer extends Producer<HanaConnectionProperties, HanaProduce
 					logger.debug("Attached the schema {} to the topic", handler.getSchemaName().getName());
 				}
 			}
+			preparedmappings.clear();
+			logger.info("Startup phase registering schemas took {}ms for {} mappings", System.currentTimeMillis() - start, sources.size());
+		}
+	}
+
+	/**
+	 * Reads the mapping files and builds their Avro schemas in parallel, ahead of the framework calling createSchema() for each.
+	 * 
+	 * @param sources the mapping names
+	 * @throws IOException in case a mapping cannot be read
+	 */
+	private void prepareMappings(List<String> sources) throws IOException {
+		File directory;
+		try (HanaBrowse browser = new HanaBrowse(getConnectionController());) {
+			directory = browser.getBusinessObjectDirectory();
+		}
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (String sourceschema : sources) {
+			tasks.add(() -> {
+				HanaTableMapping obj = HanaTableMapping.readDefinition(username, sourceschema, conn, directory);
+				obj.getAvroSchema();
+				preparedmappings.put(sourceschema, obj);
+				return null;
+			});
+		}
+		runParallel(tasks, "Startup-" + getProducerProperties().getName());
+	}
+
+	/**
+	 * Executes the tasks with the startup parallelism and waits for all to finish.
+	 * 
+	 * @param tasks the tasks
+	 * @param threadname prefix for the worker thread names
+	 * @throws IOException the first error of a task
+	 */
+	private void runParallel(List<Callable<Void>> tasks, String threadname) throws IOException {
+		int parallelism = Math.max(1, Math.min(getProducerProperties().getStartupParallelism(), tasks.size()));
+		AtomicInteger counter = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism, r -> {
+			Thread t = new Thread(r, threadname + "-" + counter.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+		try {
+			List<Future<Void>> futures = executor.invokeAll(tasks);
+			for (Future<Void> f : futures) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ConnectorRuntimeException("The producer startup got interrupted", e, null, null);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			} else {
+				throw new ConnectorRuntimeException("The producer startup failed", e.getCause(), null, null);
+			}
+		} finally {
+			executor.shutdownNow();
 		}
 	}
 
@@ -162,13 +329,50 @@ public class HanaProducer extends Producer<HanaConnectionProperties, HanaProduce
 	public void restartWith(String lastsourcetransactionid) throws IOException {
 	}
 
+	/**
+	 * While a backlog is read in limited steps, the next delta is read right away. 
+	 * With adaptive polling the interval grows while nothing changes, see updatePollInterval().
+	 */
 	@Override
 	public long getPollingInterval() {
-		return getProducerProperties().getPollInterval();
+		if (backlog) {
+			return 0;
+		} else if (nextpollinterval >= 0) {
+			return nextpollinterval;
+		} else {
+			return getProducerProperties().getPollInterval();
+		}
+	}
+
+	/**
+	 * Adaptive polling: after a poll with committed changes the interval is reset to the min poll interval,
+	 * after a poll without it doubles up to the max poll interval.
+	 * 
+	 * @param progress true if transactions got committed since the last poll
+	 */
+	private void updatePollInterval(boolean progress) {
+		int min = getProducerProperties().getMinPollInterval();
+		if (min <= 0) {
+			nextpollinterval = -1;
+		} else if (progress || nextpollinterval < 0) {
+			nextpollinterval = min;
+		} else {
+			nextpollinterval = Math.min(getProducerProperties().getMaxPollInterval(), Math.max(nextpollinterval, 1) * 2);
+		}
 	}
 
 	@Override
 	public void closeImpl() {
+		if (metrics != null) {
+			metrics.unregister();
+		}
+		if (deltareader != null) {
+			deltareader.close();
+			deltareader = null;
+		}
+		if (stmtcache != null) {
+			stmtcache.close();
+		}
 		if (conn != null) {
 			try {
 				conn.close();
@@ -181,138 +385,51 @@ public class HanaProducer extends Producer<HanaConnectionProperties, HanaProduce
 	@Override
 	protected Schema createSchema(String sourceschema) throws SchemaBuilderException, IOException {
 		try (HanaBrowse browser = new HanaBrowse(getConnectionController());) {
-			HanaTableMapping obj = HanaTableMapping.readDefinition(username, sourceschema, conn, browser.getBusinessObjectDirectory());
+			HanaTableMapping obj = preparedmappings.remove(sourceschema);
+			if (obj == null) {
+				obj = HanaTableMapping.readDefinition(username, sourceschema, conn, browser.getBusinessObjectDirectory());
+			}
 			logger.debug("Mapping File with name {} read for Hana table {}", sourceschema, obj.getHanatablename());
 			schemadirectory.put(sourceschema, obj);
-			List<HanaTableMapping> t = tabledirectory.get(obj.getHanatablename());
-			if (t == null) {
-				t = new ArrayList<>();
-				tabledirectory.put(obj.getHanatablename(), t);
+			stmtcache.invalidate(sourceschema);
+			tabledirectory.computeIfAbsent(obj.getHanatablename(), k -> new ArrayList<>()).add(obj);
+			if (obj.isBusinessObject()) {
+				// a change of a child table recreates the business object
+				for (ChildTableMapping child : obj.getChildren()) {
+					tabledirectory.computeIfAbsent(child.getHanatablename(), k -> new ArrayList<>()).add(obj);
+				}
 			}
-			t.add(obj);
 			return obj.getAvroSchema();
 		}
 	}
 
-	private JexlRecord convert(ResultSet rs, Schema schema) throws SQLException, ConnectorRuntimeException, SchemaBuilderException {
-		JexlRecord r = new JexlRecord(schema);
-		for (int i=3; i<= rs.getMetaData().getColumnCount(); i++) {
-			String columnname = rs.getMetaData().getColumnLabel(i);
-			String avrofieldname = AvroNameEncoder.encodeName(columnname);
-			int datatype = rs.getMetaData().getColumnType(i);
-			JDBCType t = JDBCType.valueOf(datatype);
-			switch (t) {
-			case BIGINT:
-				r.put(avrofieldname, rs.getLong(i));
-				break;
-			case BINARY:
-				r.put(avrofieldname, rs.getBytes(i));
-				break;
-			case BLOB:
-				r.put(avrofieldname, rs.getBytes(i));
-				break;
-			case BOOLEAN:
-				r.put(avrofieldname, rs.getBoolean(i));
-				break;
-			case CHAR:
-				r.put(avrofieldname, trim(rs.getString(i)));
-				break;
-			case CLOB:
-				r.put(avrofieldname, trim(rs.getString(i)));
-				break;
-			case DATE:
-				r.put(avrofieldname, rs.getDate(i));
-				break;
-			case DECIMAL:
-				r.put(avrofieldname, rs.getBigDecimal(i));
-				break;
-			case DOUBLE:
-				r.put(avrofieldname, rs.getDouble(i));
-				break;
-			case FLOAT:
-				r.put(avrofieldname, rs.getFloat(i));
-				break;
-			case INTEGER:
-				r.put(avrofieldname, rs.getInt(i));
-				break;
-			case LONGNVARCHAR:
-				r.put(avrofieldname, trim(rs.getString(i)));
-				break;
-			case LONGVARBINARY:
-				r.put(avrofieldname, rs.getBytes(i));
-				break;
-			case LONGVARCHAR:
-				r.put(avrofieldname, trim(rs.getString(i)));
-				break;
-			case NCHAR:
-				r.put(avrofieldname, trim(rs.getString(i)));
-				break;
-			case NCLOB:
-				r.put(avrofieldname, trim(rs.getString(i)));
-				break;
-			case NVARCHAR:
-				r.put(avrofieldname, trim(rs.getString(i)));
-				break;
-			case REAL:
-				r.put(avrofieldname, rs.getFloat(i));
-				break;
-			case SMALLINT:
-				r.put(avrofieldname, rs.getInt(i));
-				break;
-			case TIME:
-				r.put(avrofieldname, rs.getTime(i));
-				break;
-			case TIMESTAMP:
-				r.put(avrofieldname, rs.getTimestamp(i));
-				break;
-			case TIMESTAMP_WITH_TIMEZONE:
-				r.put(avrofieldname, rs.getTimestamp(i));
-				break;
-			case TIME_WITH_TIMEZONE:
-				r.put(avrofieldname, rs.getTimestamp(i));
-				break;
-			case TINYINT:
-				r.put(avrofieldname, rs.getInt(i));
-				break;
-			case VARBINARY:
-				r.put(avrofieldname, rs.getBytes(i));
-				break;
-			case VARCHAR:
-				r.put(avrofieldname, trim(rs.getString(i)));
-				break;
-			default:
-				throw new ConnectorRuntimeException("The select statement returns a datatype the connector cannot handle", null, 
-						"Please create an issue", rs.getMetaData().getColumnName(i) + ":" + t.getName());
-			}
-			if (rs.wasNull()) {
-				r.put(avrofieldname, null);
-			}
-		}
-		return r;
-	}
-
-	private String trim(String value) {
-		if (value == null || value.length() == 0) {
-			return null;
-		} else {
-			return value;
-		}
-	}
-	
+	/**
+	 * Returns the highest transaction id all transactions up to are committed.<br>
+	 * As side effect the window start for the returned transaction id is added to the windowstarts. The transaction ids are assigned at the first change, hence all transactions
+	 * with a higher id wrote their log rows after the oldest open transaction started, or after now if there is none.
+	 * The returned timestamp has a safety margin of a day, which costs at most one additional partition being read.
+	 * 
+	 * @param min_transactionid the current position, returned if nothing happened in the database since
+	 * @return the transaction id the poll can read up to
+	 * @throws ConnectorRuntimeException in case the statement fails
+	 */
 	private long getMaxTransactionId(long min_transactionid) throws ConnectorRuntimeException {
 		long max_transactionid = 0;
-		String sql = "select least(max_log, min_active) from\r\n" + 
-				"(select ifnull(max(transactionid), 9223372036854775807) max_log from pklog),\r\n" + 
-				"(select ifnull(min(update_transaction_id-1), 9223372036854775807) min_active from m_transactions where update_transaction_id > 0)";
-		try (PreparedStatement transactionlimitstmt = conn.prepareStatement(sql);) {
-			ResultSet rs = transactionlimitstmt.executeQuery();
-			if (rs.next()) {
-				max_transactionid = rs.getLong(1);
-				if (max_transactionid == 9223372036854775807L) {
-					max_transactionid = min_transactionid;
+		String sql = "select least(max_log, min_active), add_days(least(now(), min_start), -1) from\r\n" + 
+				"(select ifnull(max(transactionid), 9223372036854775807) max_log from " + getChangeLogUnion() + "),\r\n" + 
+				"(select ifnull(min(update_transaction_id-1), 9223372036854775807) min_active, ifnull(min(start_time), now()) min_start from m_transactions where update_transaction_id > 0)";
+		try {
+			PreparedStatement transactionlimitstmt = stmtcache.get(StatementCache.KIND_MAXTRANSACTIONID, null, sql);
+			try (ResultSet rs = transactionlimitstmt.executeQuery();) {
+				if (rs.next()) {
+					max_transactionid = rs.getLong(1);
+					if (max_transactionid == 9223372036854775807L) {
+						max_transactionid = min_transactionid;
+					}
+					windowstarts.put(max_transactionid, rs.getTimestamp(2));
+				} else {
+					max_transactionid = min_transactionid; // given above sql this cannot happen
 				}
-			} else {
-				max_transactionid = min_transactionid; // given above sql this cannot happen
 			}
 		} catch (SQLException e) {
 			throw new ConnectorRuntimeException("Selecting the upper bound transaction limit failed", e, 
@@ -322,18 +439,53 @@ public class HanaProducer extends Producer<HanaConnectionProperties, HanaProduce
 		return max_transactionid;
 	}
 
+	/**
+	 * @return the table specific change logs of all mappings and the source table each belongs to
+	 */
+	private Map<String, String> getChangeLogTables() {
+		Map<String, String> tables = new TreeMap<>();
+		for (HanaTableMapping obj : schemadirectory.values()) {
+			if (obj.isTableChangeLog()) {
+				tables.put(obj.getChangeLogTableName(), obj.getHanatablename());
+				if (obj.isBusinessObject()) {
+					for (ChildTableMapping child : obj.getChildren()) {
+						tables.put(child.getChangeLogTableName(), child.getHanatablename());
+					}
+				}
+			}
+		}
+		return tables;
+	}
+
+	/**
+	 * @return a subselect with the highest transaction id of the PKLOG and of each table specific change log
+	 */
+	private String getChangeLogUnion() {
+		StringBuffer b = new StringBuffer();
+		b.append("(select max(transactionid) as transactionid from pklog");
+		for (String logtable : getChangeLogTables().keySet()) {
+			b.append(" union all select max(transactionid) from \"");
+			b.append(logtable);
+			b.append("\"");
+		}
+		b.append(")");
+		return b.toString();
+	}
+
 	@Override
 	public String getCurrentTransactionId() throws ConnectorRuntimeException {
 		long current_transactionid = 0;
 		String sql = "select least(max_log, min_active) from\r\n" + 
-				"(select ifnull(max(transactionid), 0) max_log from pklog),\r\n" + 
+				"(select ifnull(max(transactionid), 0) max_log from " + getChangeLogUnion() + "),\r\n" + 
 				"(select ifnull(min(update_transaction_id-1), 9223372036854775807) min_active from m_transactions where update_transaction_id > 0)";
-		try (PreparedStatement transactionlimitstmt = conn.prepareStatement(sql);) {
-			ResultSet rs = transactionlimitstmt.executeQuery();
-			if (rs.next()) {
-				current_transactionid = rs.getLong(1);
-			} else {
-				current_transactionid = Long.MAX_VALUE; // given above sql this cannot happen
+		try {
+			PreparedStatement transactionlimitstmt = stmtcache.get(StatementCache.KIND_CURRENTTRANSACTIONID, null, sql);
+			try (ResultSet rs = transactionlimitstmt.executeQuery();) {
+				if (rs.next()) {
+					current_transactionid = rs.getLong(1);
+				} else {
+					current_transactionid = Long.MAX_VALUE; // given above sql this cannot happen
+				}
 			}
 		} catch (SQLException e) {
 			throw new ConnectorRuntimeException("Selecting the current transaction id failed", e, 
@@ -343,79 +495,382 @@ public class HanaProducer extends Producer<HanaConnectionProperties, HanaProduce
 		return String.valueOf(current_transactionid);
 	}
 
+	/**
+	 * Limits the transaction range of a single delta to the configured number of transaction ids and change log rows.
+	 * The rows of the PKLOG and of the table change logs are counted together, each branch of the union is bounded by the
+	 * limit already. The rows limit is rounded up to include all rows of the last transaction, as a transaction must never be split.
+	 * 
+	 * @param min_transactionid the current position
+	 * @param max_transactionid the highest committed transaction id
+	 * @param windowstart lower bound of the change_ts for partition pruning
+	 * @return the upper bound transaction id for this delta
+	 * @throws ConnectorRuntimeException in case the change logs cannot be read
+	 */
+	private long limitWindow(long min_transactionid, long max_transactionid, Timestamp windowstart) throws ConnectorRuntimeException {
+		long limit = max_transactionid;
+		int maxtransactions = getProducerProperties().getMaxDeltaTransactions();
+		if (maxtransactions > 0 && limit - min_transactionid > maxtransactions) {
+			limit = min_transactionid + maxtransactions;
+		}
+		int maxrows = getProducerProperties().getMaxDeltaRows();
+		if (maxrows > 0 && limit != min_transactionid) {
+			Set<String> changelogtables = getChangeLogTables().keySet();
+			String sql = "select top " + maxrows + " transactionid from pklog "
+					+ "where transactionid > ? and transactionid <= ? and change_ts >= ? order by transactionid";
+			if (changelogtables.size() != 0) {
+				String union = "(" + sql + ")";
+				for (String logtable : changelogtables) {
+					union += "\r\nunion all (select top " + maxrows + " transactionid from \"" + logtable 
+							+ "\" where transactionid > ? and transactionid <= ? order by transactionid)";
+				}
+				sql = "select top " + maxrows + " transactionid from (" + union + ") order by transactionid";
+			}
+			sql = "select max(transactionid), count(*) from (" + sql + ")";
+			try {
+				PreparedStatement stmt = stmtcache.get(StatementCache.KIND_WINDOWLIMIT, null, sql);
+				int paramindex = 1;
+				stmt.setLong(paramindex++, min_transactionid);
+				stmt.setLong(paramindex++, limit);
+				stmt.setTimestamp(paramindex++, windowstart);
+				for (int i = 0; i < changelogtables.size(); i++) {
+					stmt.setLong(paramindex++, min_transactionid);
+					stmt.setLong(paramindex++, limit);
+				}
+				try (ResultSet rs = stmt.executeQuery();) {
+					if (rs.next() && rs.getInt(2) >= maxrows) {
+						limit = rs.getLong(1);
+					}
+				}
+			} catch (SQLException e) {
+				throw new ConnectorRuntimeException("Limiting the delta to the max number of change log rows failed", e, 
+						"Any idea?", sql);
+			}
+		}
+		if (limit != max_transactionid) {
+			logger.info("Backlog of changes up to transaction id \"{}\", reading up to \"{}\" in this delta", max_transactionid, limit);
+		}
+		return limit;
+	}
+
+	/**
+	 * @param transactionid the lower bound of the transaction range to read
+	 * @return the timestamp all log entries after the transaction id are newer than
+	 */
+	private Timestamp getWindowStart(long transactionid) {
+		Map.Entry<Long, Timestamp> e = windowstarts.floorEntry(transactionid);
+		return e != null ? e.getValue() : NO_WINDOWSTART;
+	}
+
 	@Override
 	public String poll(String from_transaction) throws IOException {
-		long min_transactionid = Long.valueOf(from_transaction);
-		long max_transactionid = getMaxTransactionId(min_transactionid);
+		long pollstart = System.nanoTime();
+		PollPosition position = PollPosition.parse(from_transaction);
+		long lowest = position.getLowest();
+		recordPosition(lowest);
+		Long floor = windowstarts.floorKey(lowest);
+		if (floor != null) {
+			windowstarts.headMap(floor).clear();
+		}
+		long committed_transactionid = getMaxTransactionId(position.getHighest());
+		/*
+		 * Only the mappings of poll classes which are due are read, the others keep their position.
+		 * Classes without any mapping are always due, so they do not hold back the position.
+		 */
+		long now = System.currentTimeMillis();
+		Set<PollClass> used = EnumSet.noneOf(PollClass.class);
+		for (HanaTableMapping obj : schemadirectory.values()) {
+			used.add(obj.getPollClass());
+		}
+		Set<PollClass> due = EnumSet.noneOf(PollClass.class);
+		for (PollClass c : PollClass.values()) {
+			if (!used.contains(c) || now - lastread.getOrDefault(c, 0L) >= c.getInterval(getProducerProperties()) * 1000L) {
+				due.add(c);
+			}
+		}
+		long min_transactionid = Math.min(position.getLowest(due), committed_transactionid);
+		Timestamp ts = getWindowStart(min_transactionid);
+		long max_transactionid = limitWindow(min_transactionid, committed_transactionid, ts);
+		long probenanos = System.nanoTime() - pollstart;
+		metrics.recordPosition(committed_transactionid, lowest);
+		backlog = max_transactionid != committed_transactionid;
+		updatePollInterval(min_transactionid != committed_transactionid);
 		String sql = null;
 		if (min_transactionid != max_transactionid) { // If Hana has not processed a single record anywhere, no need to check for data
-			logger.debug("Reading change data from Hana transaction id \"{}\" to transaction id \"{}\"", min_transactionid, max_transactionid);
+			logger.debug("Reading change data from Hana transaction id \"{}\" to transaction id \"{}\" for the poll classes {}", min_transactionid, max_transactionid, due);
+			PollPosition previous = PollPosition.parse(from_transaction);
+			for (PollClass c : due) {
+				if (position.get(c) < max_transactionid) {
+					position.set(c, max_transactionid);
+				}
+			}
+			String newposition = position.toString();
 			try {
-				sql = "select distinct table_name from PKLOG where transactionid > ? and transactionid <= ?";
+				boolean staged = getProducerProperties().isDeltaScanStaged();
 				Set<HanaTableMapping> impacted = new HashSet<>();
-				try (PreparedStatement logtablesstmt = conn.prepareStatement(sql);) {
-					logtablesstmt.setLong(1, min_transactionid);
-					logtablesstmt.setLong(2, max_transactionid);
-					
+				PreparedStatement logtablesstmt;
+				int paramindex = 1;
+				if (staged) {
 					/*
-					 * Read all tables that got changed and translate that to the master tables to be read.
-					 * For example the item table got changed and hence the order object has to be recreated.
+					 * The PKLOG window is read once, the impacted tables and all delta selects use the staged keys
 					 */
-					try (ResultSet logtablesrs = logtablesstmt.executeQuery();) {
-						while (logtablesrs.next()) {
-							String changetable = logtablesrs.getString(1);
-							List<HanaTableMapping> t = tabledirectory.get(changetable);
-							if (t != null) {
-								impacted.addAll(t);
+					int keys = ChangeLogTable.stageWindow(stmtcache, min_transactionid, max_transactionid, ts);
+					logger.debug("Staged {} changed keys", keys);
+					sql = "select distinct table_name from \"" + ChangeLogTable.WINDOW_TABLE_NAME + "\"";
+				} else {
+					sql = "select distinct table_name from PKLOG where transactionid > ? and transactionid <= ? and change_ts >= ?";
+				}
+				/*
+				 * The table specific change logs contain the changes of one table only, a single row in the window is enough
+				 */
+				Map<String, String> changelogtables = getChangeLogTables();
+				for (Map.Entry<String, String> e : changelogtables.entrySet()) {
+					sql += "\r\nunion all select '" + e.getValue() + "' from dummy where exists (select 1 from \"" + e.getKey() 
+							+ "\" where transactionid > ? and transactionid <= ?)";
+				}
+				logtablesstmt = stmtcache.get(StatementCache.KIND_IMPACTED, null, sql);
+				if (!staged) {
+					logtablesstmt.setLong(paramindex++, min_transactionid);
+					logtablesstmt.setLong(paramindex++, max_transactionid);
+					logtablesstmt.setTimestamp(paramindex++, ts);
+				}
+				for (int i = 0; i < changelogtables.size(); i++) {
+					logtablesstmt.setLong(paramindex++, min_transactionid);
+					logtablesstmt.setLong(paramindex++, max_transactionid);
+				}
+				
+				/*
+				 * Read all tables that got changed and translate that to the master tables to be read.
+				 * For example the item table got changed and hence the order object has to be recreated.
+				 */
+				try (ResultSet logtablesrs = logtablesstmt.executeQuery();) {
+					while (logtablesrs.next()) {
+						String changetable = logtablesrs.getString(1);
+						List<HanaTableMapping> t = tabledirectory.get(changetable);
+						if (t != null) {
+							for (HanaTableMapping obj : t) {
+								// the mappings of classes not due or with nothing new in the window are skipped
+								if (due.contains(obj.getPollClass()) && previous.get(obj.getPollClass()) < max_transactionid) {
+									impacted.add(obj);
+								}
 							}
 						}
 					}
 				}
+				long scannanos = System.nanoTime() - pollstart - probenanos;
+				long querynanos = 0;
+				long emitnanos = 0;
 				if (impacted.size() > 0) {
-					logger.debug("Found changes for mappings \"{}\"", impacted.toString());
-					beginDeltaTransaction(String.valueOf(max_transactionid), instance.getInstanceNumber());
-					for (HanaTableMapping obj : impacted) {
-						String currentschema = obj.getName();
-						sql = obj.getDeltaSelect();
-						try (PreparedStatement stmt = conn.prepareStatement(sql);) {
-							stmt.setLong(1, min_transactionid);
-							stmt.setLong(2, max_transactionid);
+					List<HanaTableMapping> ordered = new ArrayList<>(impacted);
+					ordered.sort(Comparator.comparing(HanaTableMapping::getName));
+					logger.debug("Found changes for mappings \"{}\"", ordered.toString());
+					beginDeltaTransaction(newposition, instance.getInstanceNumber());
+					long max = max_transactionid;
+					int parallelism = getProducerProperties().getDeltaParallelism();
+					int fetchbytes = getProducerProperties().getFetchBytes();
+					if (!staged && parallelism > 1 && ordered.size() > 1) {
+						/*
+						 * All delta selects are started right away on the worker connections, the rows are added in mapping name order.
+						 * The staged window is visible to the producer connection only, hence this is not supported in staged mode.
+						 */
+						List<RowQueue> queues = new ArrayList<>();
+						for (HanaTableMapping obj : ordered) {
+							long min = previous.get(obj.getPollClass());
+							Timestamp mints = getWindowStart(min);
+							queues.add(getDeltaReader(parallelism).submit(obj.getDeltaSelect(), stmt -> obj.setDeltaParameters(stmt, min, max, mints),
+									obj, false, obj.getFetchSize(fetchbytes)));
+						}
+						for (int i = 0; i < ordered.size(); i++) {
+							RowQueue queue = queues.get(i);
+							sql = queue.getSql();
+							SchemaHandler handler = getSchema(ordered.get(i).getName());
+							// the select runs on a worker, the time waiting for its rows is the query time seen by the poll
+							long start = System.nanoTime();
+							long emit = 0;
+							long rows = 0;
+							ExtractedRow row;
+							while ((row = queue.take()) != null) {
+								long emitstart = System.nanoTime();
+								addDeltaRow(handler, row.getChangeType(), row.getRecord());
+								emit += System.nanoTime() - emitstart;
+								rows++;
+							}
+							long query = System.nanoTime() - start - emit;
+							metrics.recordDelta(ordered.get(i).getName(), rows, query);
+							querynanos += query;
+							emitnanos += emit;
+						}
+						deltareader.release();
+					} else {
+						for (HanaTableMapping obj : ordered) {
+							long min = previous.get(obj.getPollClass());
+							boolean objstaged = staged && obj.getDeltaSelectStaged() != null;
+							SchemaHandler handler = getSchema(obj.getName());
+							sql = objstaged ? obj.getDeltaSelectStaged() : obj.getDeltaSelect();
+							PreparedStatement stmt = stmtcache.get(StatementCache.KIND_DELTA, obj.getName(), sql);
+							stmt.setFetchSize(obj.getFetchSize(fetchbytes));
+							if (objstaged) {
+								stmt.setLong(1, min);
+							} else {
+								obj.setDeltaParameters(stmt, min, max, getWindowStart(min));
+							}
+							long start = System.nanoTime();
+							long emit = 0;
+							long rows = 0;
 							try (ResultSet rs = stmt.executeQuery(); ) {
-								while (rs.next()) {
-									JexlRecord r = convert(rs, obj.getAvroSchema());
-					    			RowType rowtype;
-					    			switch (rs.getString(1)) {
-					    			case "D": 
-					    				rowtype = RowType.DELETE;
-					    				break;
-					    			default: 
-					    				rowtype = RowType.UPSERT;
-					    			}
-					    			addRow(topic, null, getSchema(currentschema), r, rowtype, null, getProducerProperties().getName());
-					    			logger.debug("Sending row {}", r.toString());
+								RecordCursor cursor = obj.getDeltaConverter(rs.getMetaData()).open(rs);
+								while (cursor.next()) {
+									long emitstart = System.nanoTime();
+									addDeltaRow(handler, cursor.getChangeType(), cursor.getRecord());
+									emit += System.nanoTime() - emitstart;
+									rows++;
 								}
 							}
+							long query = System.nanoTime() - start - emit;
+							metrics.recordDelta(obj.getName(), rows, query);
+							querynanos += query;
+							emitnanos += emit;
 						}
 					}
 					
 					commitDeltaTransaction();
 					conn.commit();
 				}
-				logger.debug("Moved min transaction id to \"{}\" as new starting point", max_transactionid);
-				return String.valueOf(max_transactionid);
+				logger.debug("Moved transaction id position to \"{}\" as new starting point", newposition);
+				markRead(due, position, committed_transactionid, now);
+				updateBacklog(max_transactionid);
+				metrics.recordPoll(probenanos, scannanos, querynanos, emitnanos, System.nanoTime() - pollstart);
+				return newposition;
 			} catch (SQLException e) {
-				abortTransaction();
+				abortDelta();
 				throw new ConnectorRuntimeException("Selecting the changes ran into an error", e, "Any idea?", sql);
 			} catch (SchemaBuilderException e) {
-				abortTransaction();
+				abortDelta();
 				throw new ConnectorRuntimeException("Selecting the changes ran into an error with the schema", e, 
 						"Any idea?", null);
+			} catch (InterruptedException e) {
+				abortDelta();
+				Thread.currentThread().interrupt();
+				throw new ConnectorRuntimeException("Reading the changes got interrupted", e, 
+						null, sql);
 			}
 		} else {
+			markRead(due, position, committed_transactionid, now);
+			updateBacklog(max_transactionid);
+			metrics.recordPoll(probenanos, 0, 0, 0, System.nanoTime() - pollstart);
 			return from_transaction;
 		}
 	}
 
+	/**
+	 * Counts the change log rows and transactions after the position read up to, once per ProducerMetrics.BACKLOG_INTERVAL.
+	 * A failure is logged only, as the metrics must not stop the producer.
+	 * 
+	 * @param transactionid the position read up to
+	 */
+	private void updateBacklog(long transactionid) {
+		if (metrics.isBacklogDue()) {
+			StringBuffer b = new StringBuffer();
+			b.append("select count(*), count(distinct transactionid) from (select transactionid from pklog where transactionid > ? and change_ts >= ?");
+			Set<String> logtables = getChangeLogTables().keySet();
+			for (String logtable : logtables) {
+				b.append(" union all select transactionid from \"");
+				b.append(logtable);
+				b.append("\" where transactionid > ?");
+			}
+			b.append(")");
+			String sql = b.toString();
+			try {
+				PreparedStatement stmt = stmtcache.get(StatementCache.KIND_BACKLOG, null, sql);
+				stmt.setLong(1, transactionid);
+				stmt.setTimestamp(2, getWindowStart(transactionid));
+				for (int i = 0; i < logtables.size(); i++) {
+					stmt.setLong(i + 3, transactionid);
+				}
+				try (ResultSet rs = stmt.executeQuery();) {
+					if (rs.next()) {
+						metrics.recordBacklog(rs.getLong(1), rs.getLong(2));
+					}
+				}
+				conn.commit();
+			} catch (SQLException e) {
+				logger.info("Measuring the change log backlog failed with the sql {}", sql, e);
+			}
+		}
+	}
+
+	/**
+	 * A poll class counts as read once it caught up with the committed transactions, while it works through a backlog
+	 * it stays due.
+	 */
+	private void markRead(Set<PollClass> due, PollPosition position, long committed_transactionid, long now) {
+		for (PollClass c : due) {
+			if (position.get(c) >= committed_transactionid) {
+				lastread.put(c, now);
+			}
+		}
+	}
+
+	private void addDeltaRow(SchemaHandler handler, String changetype, JexlRecord r) throws IOException {
+		RowType rowtype;
+		switch (changetype) {
+		case "D": 
+			rowtype = RowType.DELETE;
+			break;
+		default: 
+			rowtype = RowType.UPSERT;
+		}
+		addRow(topic, null, handler, r, rowtype, null, getProducerProperties().getName());
+		logger.debug("Sending row {}", r);
+	}
+
+	/**
+	 * The worker threads for the delta selects are kept for the lifetime of the producer, their connections are returned to the
+	 * pool after each poll, as the pool is shared with the other producers and the UI.
+	 * 
+	 * @param parallelism number of workers
+	 * @return the worker pool for reading the deltas
+	 */
+	private ParallelReader getDeltaReader(int parallelism) {
+		if (deltareader == null) {
+			deltareader = new ParallelReader(getConnectionProperties(), parallelism, "Delta-" + getProducerProperties().getName());
+		}
+		return deltareader;
+	}
+
+	/**
+	 * Aborts the delta transaction and stops all delta selects still running or queued.
+	 * The cached statements are closed as well, in case the error was caused by one of them.
+	 * 
+	 * @throws IOException in case the abort fails
+	 */
+	private void abortDelta() throws IOException {
+		if (deltareader != null) {
+			deltareader.close();
+			deltareader = null;
+		}
+		stmtcache.close();
+		abortTransaction();
+	}
+
+	/**
+	 * The poll is called with the position committed in Kafka, hence all log rows up to it are not needed by this producer any longer.
+	 * 
+	 * @param transactionid the committed position
+	 * @throws ConnectorRuntimeException in case the DELTAINFO table cannot be updated
+	 */
+	private void recordPosition(long transactionid) throws ConnectorRuntimeException {
+		if (transactionid != recordedposition) {
+			try {
+				ChangeLogTable.setPosition(stmtcache, getProducerProperties().getName(), transactionid);
+				conn.commit();
+				recordedposition = transactionid;
+			} catch (SQLException e) {
+				throw new ConnectorRuntimeException("Recording the producer position in the DELTAINFO table failed", e, 
+						"Execute the sql as Hana user \"" + getConnectionProperties().getUsername() + "\"", null);
+			}
+		}
+	}
+
 /*	private void updateDeltaInfo(long max_transactionid) throws ConnectorRuntimeException {
 		String sql = "insert into deltainfo (delta_ts, producername, transactionid) values (now(), ?, ?)";
 		try (PreparedStatement transactionlimitstmt = conn.prepareStatement(sql);) {
@@ -430,39 +885,40 @@ public class HanaProducer extends Producer<HanaConnectionProperties, HanaProduce
 	} */
 
 	/**
-	 * Delete all old data from PKLOG and DELTAINFO
+	 * Purge the PKLOG up to the lowest position of all producers and drop the partitions outside the retention period
 	 */
 	public void executePeriodicTask() throws ConnectorRuntimeException {
-		// The condition transactionid <> 0 is important as this acts as the indicator for initial loads
-		/* String sql = "delete from deltainfo where delta_ts < add_days(now(), -7) and transactionid <> 0";
-		try (PreparedStatement stmt = conn.prepareStatement(sql);) {
-			stmt.execute();
-			logger.debug("Deleted outdated data from DELTAINFO");
+		int retention = getProducerProperties().getPKLogRetention();
+		String sql = null;
+		try {
+			long start = System.currentTimeMillis();
+			long watermark = ChangeLogTable.getWatermark(conn, retention);
+			ChangeLogTable.maintainPartitions(conn, retention, watermark);
+			long rows = 0;
+			if (watermark >= 0) {
+				rows = ChangeLogTable.purge(conn, ChangeLogTable.TABLE_NAME, watermark, getProducerProperties().getPurgeBatchSize());
+				for (String logtable : getChangeLogTables().keySet()) {
+					rows += ChangeLogTable.purge(conn, logtable, watermark, getProducerProperties().getPurgeBatchSize());
+				}
+			}
+			/*
+			 * The retention is the upper limit, also for rows a producer not running for that long did not read. 
+			 * After the partitions are dropped, this deletes the outdated rows that went into the OTHERS partition only.
+			 */
+			rows += ChangeLogTable.purgeRetention(conn, ChangeLogTable.TABLE_NAME, retention, getProducerProperties().getPurgeBatchSize());
+			for (String logtable : getChangeLogTables().keySet()) {
+				rows += ChangeLogTable.purgeRetention(conn, logtable, retention, getProducerProperties().getPurgeBatchSize());
+			}
+			logger.info("Purged {} rows from the change logs up to transaction id {} in {}ms", rows, watermark, System.currentTimeMillis() - start);
 		} catch (SQLException e) {
-			throw new ConnectorRuntimeException("Deleting outdated data from the DELTAINFO table failed", e, 
-					"Any idea?", sql);
-		} finally {
 			try {
-				conn.commit();
-			} catch (SQLException e) {
-				logger.error("Failed ot commit", e);
+				conn.rollback();
+			} catch (SQLException e1) {
+				logger.error("Failed to rollback", e1);
 			}
-		} */
-		String sql = "delete from pklog where CHANGE_TS < add_days(now(), -7)";
-		try (PreparedStatement stmt = conn.prepareStatement(sql);) {
-			stmt.execute();
-			logger.debug("Deleted outdated data from PKLOG");
-		} catch (SQLException e) {
 			throw new ConnectorRuntimeException("Deleting outdated data from the PKLOG table failed", e, 
 					"Any idea?", sql);
-		} finally {
-			try {
-				conn.commit();
-			} catch (SQLException e) {
-				logger.error("Failed ot commit", e);
-			}
 		}
-
 	}
 
 	@Override
@@ -475,26 +931,33 @@ public class HanaProducer extends Producer<HanaConnectionProperties, HanaProduce
 	@Override
 	public long executeInitialLoad(String schemaname, String transactionid) throws IOException {
 		HanaTableMapping obj = schemadirectory.get(schemaname);
+		int parallelism = getProducerProperties().getInitialLoadParallelism();
+		if (parallelism > 1) {
+			return executeParallelInitialLoad(obj, transactionid, parallelism);
+		}
 		logger.debug("Initial load for mapping \"{}\" is about to start", schemaname);
+		long start = System.nanoTime();
 		String sql = obj.getInitialSelect();
 		SchemaHandler schemahandler = getSchema(obj.getName());
 		Schema schema = null;
 		try (PreparedStatement stmt = conn.prepareStatement(sql); ) {
+			stmt.setFetchSize(obj.getFetchSize(getProducerProperties().getFetchBytes()));
 			schema = obj.getAvroSchema();
 			beginInitialLoadTransaction(transactionid, schemaname, instance.getInstanceNumber());
 			try (ResultSet rs = stmt.executeQuery();) {
-				while (rs.next()) {
-					JexlRecord r = convert(rs, schema);
+				RecordCursor cursor = obj.getInitialConverter(rs.getMetaData()).open(rs);
+				while (cursor.next()) {
 					addRow(topic,
 							null,
 							schemahandler,
-							r,
+							cursor.getRecord(),
 							RowType.INSERT,
 							null,
 							getProducerProperties().getName());
 				}
 			}
 			commitInitialLoadTransaction();
+			metrics.recordInitialLoad(schemaname, getCurrentTransactionRowCount(), System.nanoTime() - start);
 			logger.debug("Initial load for mapping \"{}\" is completed, loaded {} rows", schemaname, getCurrentTransactionRowCount());
 			return getCurrentTransactionRowCount();
 		} catch (SQLException e) {
@@ -507,4 +970,83 @@ public class HanaProducer extends Producer<HanaConnectionProperties, HanaProduce
 					null, schema.toString());
 		}
 	}
+
+	/**
+	 * Splits the table into $rowid$ ranges and reads those on multiple connections. The rows are added to the
+	 * single initial load transaction in the order the connections read them, so all ranges are read at the same time.<br>
+	 * Hana has no way to share a snapshot between connections, hence the chunks are read at slightly different
+	 * points in time. This is no problem as the triggers log all changes since the initial load transactionid
+	 * and the delta will send those records again, including rows that moved to a different $rowid$ range.
+	 * 
+	 * @param obj mapping to load
+	 * @param transactionid the source transaction the initial load is based on
+	 * @param parallelism number of connections to use
+	 * @return number of rows loaded
+	 * @throws IOException in case of any error
+	 */
+	private long executeParallelInitialLoad(HanaTableMapping obj, String transactionid, int parallelism) throws IOException {
+		String schemaname = obj.getName();
+		logger.debug("Initial load for mapping \"{}\" is about to start using {} connections", schemaname, parallelism);
+		long start = System.nanoTime();
+		SchemaHandler schemahandler = getSchema(schemaname);
+		String sql = obj.getRowIdBoundsSelect();
+		long minrowid = 0;
+		long maxrowid = -1;
+		try (PreparedStatement stmt = conn.prepareStatement(sql); ) {
+			try (ResultSet rs = stmt.executeQuery();) {
+				if (rs.next()) {
+					minrowid = rs.getLong(1);
+					if (rs.wasNull()) {
+						minrowid = 0; // empty table
+					} else {
+						maxrowid = rs.getLong(2);
+					}
+				}
+			}
+			conn.commit();
+		} catch (SQLException e) {
+			throw new ConnectorRuntimeException("Reading the $rowid$ range of the table failed", e, 
+					"Execute the sql as Hana user \"" + getConnectionProperties().getUsername() + "\"", sql);
+		}
+		sql = obj.getInitialSelectRange();
+		try (ParallelReader reader = new ParallelReader(getConnectionProperties(), parallelism, "InitialLoad-" + schemaname);) {
+			beginInitialLoadTransaction(transactionid, schemaname, instance.getInstanceNumber());
+			List<ParameterBinder> chunks = new ArrayList<>();
+			long chunksize = (maxrowid - minrowid) / (parallelism * CHUNKS_PER_CONNECTION) + 1;
+			for (long lower = minrowid; lower <= maxrowid; lower += chunksize) {
+				long from = lower;
+				long to = lower + chunksize;
+				chunks.add(stmt -> obj.setInitialRangeParameters(stmt, from, to));
+			}
+			logger.debug("Initial load for mapping \"{}\" split into {} chunks of {} $rowid$ values", schemaname, chunks.size(), chunksize);
+			RowQueue queue = reader.submitAll(sql, chunks, obj, true, obj.getFetchSize(getProducerProperties().getFetchBytes()));
+			ExtractedRow row;
+			while ((row = queue.take()) != null) {
+				addRow(topic,
+						null,
+						schemahandler,
+						row.getRecord(),
+						RowType.INSERT,
+						null,
+						getProducerProperties().getName());
+			}
+			commitInitialLoadTransaction();
+			metrics.recordInitialLoad(schemaname, getCurrentTransactionRowCount(), System.nanoTime() - start);
+			logger.debug("Initial load for mapping \"{}\" is completed, loaded {} rows", schemaname, getCurrentTransactionRowCount());
+			return getCurrentTransactionRowCount();
+		} catch (SQLException e) {
+			abortTransaction();
+			throw new ConnectorRuntimeException("Executing the initial load SQL failed with SQL error", e, 
+					"Execute the sql as Hana user \"" + getConnectionProperties().getUsername() + "\"", sql);
+		} catch (SchemaBuilderException e) {
+			abortTransaction();
+			throw new ConnectorRuntimeException("SchemaBuilderException thrown when assigning the values", e, 
+					null, schemaname);
+		} catch (InterruptedException e) {
+			abortTransaction();
+			Thread.currentThread().interrupt();
+			throw new ConnectorRuntimeException("The initial load got interrupted", e, 
+					null, schemaname);
+		}
+	}
 }
@@ -11,12 +11,36 @@ public class HanaProducerProperties extends ProducerProperties {
 	private static final String PRODUCER_TOPICNAME = "producer.topic";
 	private static final String PRODUCER_POLLINTERVAL = "producer.pollinterval";
 	private static final String PRODUCER_SOURCE_SCHEMAS = "producer.source";
+	private static final String PRODUCER_INITIALLOAD_PARALLELISM = "producer.initialloadparallelism";
+	private static final String PRODUCER_DELTA_PARALLELISM = "producer.deltaparallelism";
+	private static final String PRODUCER_FETCH_KB = "producer.fetchkb";
+	private static final String PRODUCER_PKLOG_RETENTION = "producer.pklogretention";
+	private static final String PRODUCER_PURGE_BATCHSIZE = "producer.purgebatchsize";
+	private static final String PRODUCER_DELTA_SCANMODE = "producer.deltascanmode";
+	private static final String PRODUCER_MAX_DELTA_TRANSACTIONS = "producer.maxdeltatransactions";
+	private static final String PRODUCER_MAX_DELTA_ROWS = "producer.maxdeltarows";
+	private static final String PRODUCER_STARTUP_PARALLELISM = "producer.startupparallelism";
+	private static final String PRODUCER_MIN_POLLINTERVAL = "producer.minpollinterval";
+	private static final String PRODUCER_MAX_POLLINTERVAL = "producer.maxpollinterval";
+	public static final String SCANMODE_VIEW = "view";
+	public static final String SCANMODE_STAGED = "staged";
 
 	public HanaProducerProperties(String name) throws PropertiesException {
 		super(name);
 		properties.addStringProperty(PRODUCER_TOPICNAME, "Target Topic", null, null, name, true);
 		properties.addIntegerProperty(PRODUCER_POLLINTERVAL, "Poll interval", "Poll every n seconds", null, 60, true);
+		properties.addIntegerProperty(PRODUCER_MIN_POLLINTERVAL, "Min poll interval", "Adaptive polling: poll every n seconds after changes were found, doubling the interval while nothing changes. 0 for a fixed poll interval", null, 0, false);
+		properties.addIntegerProperty(PRODUCER_MAX_POLLINTERVAL, "Max poll interval", "Adaptive polling: upper limit in seconds the interval grows to when idle. 0 uses the poll interval", null, 0, false);
 		properties.addMultiSchemaSelectorProperty(PRODUCER_SOURCE_SCHEMAS, "Source tables", "List of source tables to create data for", null, true);
+		properties.addIntegerProperty(PRODUCER_INITIALLOAD_PARALLELISM, "Initial load parallelism", "Number of connections reading chunks of a table in parallel during the initial load, must be below the pool size of the connection", null, 1, false);
+		properties.addIntegerProperty(PRODUCER_DELTA_PARALLELISM, "Delta parallelism", "Number of connections reading the changes of different tables in parallel, must be below the pool size of the connection", null, 1, false);
+		properties.addIntegerProperty(PRODUCER_STARTUP_PARALLELISM, "Startup parallelism", "Number of mappings read and of tables whose triggers are created in parallel when the producer starts, must be below the pool size of the connection", null, 4, false);
+		properties.addIntegerProperty(PRODUCER_PKLOG_RETENTION, "PKLOG retention", "Number of days the change log is kept, older days are dropped as a whole", null, 7, false);
+		properties.addIntegerProperty(PRODUCER_PURGE_BATCHSIZE, "PKLOG purge batch size", "Number of PKLOG rows deleted per statement when purging the rows all producers have read", null, 100000, false);
+		properties.addStringProperty(PRODUCER_DELTA_SCANMODE, "Delta scan mode", "view: each impacted table reads the PKLOG via its change view; staged: the PKLOG window is read once into a temporary table (no parallel delta)", null, SCANMODE_VIEW, false);
+		properties.addIntegerProperty(PRODUCER_MAX_DELTA_TRANSACTIONS, "Max transaction ids per delta", "Upper limit of the transaction id range read in one delta, a larger backlog is read in multiple steps. 0 for no limit", null, 0, false);
+		properties.addIntegerProperty(PRODUCER_MAX_DELTA_ROWS, "Max change log rows per delta", "Upper limit of PKLOG and table change log rows read in one delta, rounded up to complete transactions. 0 for no limit", null, 0, false);
+		properties.addIntegerProperty(PRODUCER_FETCH_KB, "Fetch size in KB", "Data volume per round trip, the number of rows fetched is derived from the row width unless the mapping specifies a fetch size. 0 uses the driver default", null, 1024, false);
 	}
 
 	public HanaProducerProperties(File dir, String name) throws PropertiesException {
@@ -31,6 +55,66 @@ public class HanaProducerProperties extends ProducerProperties {
 		return properties.getIntPropertyValue(PRODUCER_POLLINTERVAL);
 	}
 	
+	/**
+	 * @return the shortest adaptive poll interval in seconds, 0 if the interval is fixed
+	 */
+	public int getMinPollInterval() {
+		return properties.getIntPropertyValue(PRODUCER_MIN_POLLINTERVAL);
+	}
+	
+	/**
+	 * @return the longest adaptive poll interval in seconds, at least the min poll interval
+	 */
+	public int getMaxPollInterval() {
+		int max = properties.getIntPropertyValue(PRODUCER_MAX_POLLINTERVAL);
+		if (max <= 0) {
+			max = getPollInterval();
+		}
+		return Math.max(max, getMinPollInterval());
+	}
+	
+	public int getInitialLoadParallelism() {
+		return properties.getIntPropertyValue(PRODUCER_INITIALLOAD_PARALLELISM);
+	}
+	
+	public int getDeltaParallelism() {
+		return properties.getIntPropertyValue(PRODUCER_DELTA_PARALLELISM);
+	}
+	
+	/**
+	 * @return the number of bytes each fetch round trip should transfer
+	 */
+	public int getFetchBytes() {
+		return properties.getIntPropertyValue(PRODUCER_FETCH_KB) * 1024;
+	}
+	
+	public int getStartupParallelism() {
+		return properties.getIntPropertyValue(PRODUCER_STARTUP_PARALLELISM);
+	}
+	
+	public int getPKLogRetention() {
+		return properties.getIntPropertyValue(PRODUCER_PKLOG_RETENTION);
+	}
+	
+	public int getPurgeBatchSize() {
+		return properties.getIntPropertyValue(PRODUCER_PURGE_BATCHSIZE);
+	}
+	
+	/**
+	 * @return true if the PKLOG window should be read once per poll into a temporary table
+	 */
+	public boolean isDeltaScanStaged() {
+		return SCANMODE_STAGED.equalsIgnoreCase(properties.getStringPropertyValue(PRODUCER_DELTA_SCANMODE));
+	}
+	
+	public int getMaxDeltaTransactions() {
+		return properties.getIntPropertyValue(PRODUCER_MAX_DELTA_TRANSACTIONS);
+	}
+	
+	public int getMaxDeltaRows() {
+		return properties.getIntPropertyValue(PRODUCER_MAX_DELTA_ROWS);
+	}
+	
 	public List<String> getSourceSchemas() throws PropertiesException {
 		return properties.getMultiSchemaSelectorValue(PRODUCER_SOURCE_SCHEMAS);
 	}
@@ -43,6 +127,50 @@ public class HanaProducerProperties extends ProducerProperties {
 		properties.setProperty(PRODUCER_POLLINTERVAL, value);
 	}
 
+	public void setInitialLoadParallelism(int value) throws PropertiesException {
+		properties.setProperty(PRODUCER_INITIALLOAD_PARALLELISM, value);
+	}
+
+	public void setDeltaParallelism(int value) throws PropertiesException {
+		properties.setProperty(PRODUCER_DELTA_PARALLELISM, value);
+	}
+
+	public void setFetchKB(int value) throws PropertiesException {
+		properties.setProperty(PRODUCER_FETCH_KB, value);
+	}
+
+	public void setPKLogRetention(int value) throws PropertiesException {
+		properties.setProperty(PRODUCER_PKLOG_RETENTION, value);
+	}
+
+	public void setPurgeBatchSize(int value) throws PropertiesException {
+		properties.setProperty(PRODUCER_PURGE_BATCHSIZE, value);
+	}
+
+	public void setDeltaScanMode(String value) throws PropertiesException {
+		properties.setProperty(PRODUCER_DELTA_SCANMODE, value);
+	}
+
+	public void setMaxDeltaTransactions(int value) throws PropertiesException {
+		properties.setProperty(PRODUCER_MAX_DELTA_TRANSACTIONS, value);
+	}
+
+	public void setMaxDeltaRows(int value) throws PropertiesException {
+		properties.setProperty(PRODUCER_MAX_DELTA_ROWS, value);
+	}
+
+	public void setMinPollInterval(int value) throws PropertiesException {
+		properties.setProperty(PRODUCER_MIN_POLLINTERVAL, value);
+	}
+
+	public void setMaxPollInterval(int value) throws PropertiesException {
+		properties.setProperty(PRODUCER_MAX_POLLINTERVAL, value);
+	}
+
+	public void setStartupParallelism(int value) throws PropertiesException {
+		properties.setProperty(PRODUCER_STARTUP_PARALLELISM, value);
+	}
+
 	public void setSourceSchemas(List<String> value) throws PropertiesException {
 		properties.setProperty(PRODUCER_SOURCE_SCHEMAS, value);
 	}
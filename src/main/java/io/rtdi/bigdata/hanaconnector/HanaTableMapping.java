@@ -6,16 +6,22 @@ import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.avro.Schema;
 import org.apache.avro.SchemaBuilderException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
@@ -27,20 +33,86 @@ import io.rtdi.bigdata.kafka.avro.datatypes.*;
 import io.rtdi.bigdata.connector.pipeline.foundation.exceptions.PropertiesException;
 import io.rtdi.bigdata.kafka.avro.recordbuilders.*;
 import io.rtdi.bigdata.connector.pipeline.foundation.utils.FileNameEncoder;
+import io.rtdi.bigdata.hanaconnector.DeltaObjectCatalog.ExistingTrigger;
 
 public class HanaTableMapping {
+	private static final Logger logger = LogManager.getLogger(HanaTableMapping.class);
 	private String hanatablename; // e.g. salesorder as L1
 	private List<ColumnMapping> columnmappings; // e.g. orderid <- L1.orderid  
 	private List<String> pkcolumns;
-	private static ObjectMapper mapper = new ObjectMapper();
+	private Integer fetchsize; // null means derive it from the row width
+	private String triggertype; // null means row level triggers
+	private String pollclass; // null means STANDARD
+	private String changelog; // null means PKLOG
+	private List<ChildTableMapping> children; // null means a single table mapping
+	private String filter; // null means all rows
+	private static final ObjectMapper mapper = new ObjectMapper();
+	/**
+	 * The Avro schema per Hana data type string, e.g. NVARCHAR(10), as the same types are used by many columns
+	 */
+	private static final Map<String, Schema> DATATYPE_CACHE = new ConcurrentHashMap<>();
+	private static final Pattern DATATYPE_PATTERN = Pattern.compile("(\\w*)\\s*\\(?\\s*(\\d*)\\s*\\,?\\s*(\\d*)\\s*\\)?.*");  // decimal(10,3) plus spaces anywhere, three groups
 	protected Schema avroschema = null;
 
+	static {
+		// configured once, the mapper is shared by concurrent writes
+		mapper.setSerializationInclusion(Include.NON_NULL);
+	}
+
 	private Connection conn;
 	private String hanaschema;
 	private String username;
 	private String mappingname;
 	private String deltaselect;
+	private String deltaselectstaged;
 	private String initialselect;
+	private String initialselectrange;
+	private RowConverter initialconverter;
+	private RowConverter deltaconverter;
+	private int estimatedrowwidth = -1;
+	private RowFilter rowfilter;
+	private SourceTable sourcetable;
+	private RowFilter triggerfilter;
+
+	/**
+	 * Hana does not allow to fetch more rows per round trip than this
+	 */
+	private static final int MAX_FETCH_SIZE = 32767;
+	private static final int MIN_FETCH_SIZE = 10;
+	/**
+	 * The bytes assumed for the change type, transaction id and rowid columns of each row
+	 */
+	private static final int ROW_OVERHEAD = 32;
+	/**
+	 * LOBs are transferred as locator plus the first bytes of the value, the rest is read on demand
+	 */
+	private static final int LOB_WIDTH = 1024;
+	/**
+	 * One trigger call per row, the default
+	 */
+	public static final String TRIGGERTYPE_ROW = "ROW";
+	/**
+	 * One trigger call per statement inserting all changed keys at once, for tables with bulk DML
+	 */
+	public static final String TRIGGERTYPE_STATEMENT = "STATEMENT";
+	/**
+	 * All tables log into the shared PKLOG with the keys converted to nvarchar, the default
+	 */
+	public static final String CHANGELOG_PKLOG = "PKLOG";
+	/**
+	 * Each source table logs into its own change log table with the keys in their source data types
+	 */
+	public static final String CHANGELOG_TABLE = "TABLE";
+	/**
+	 * Like TABLE but the triggers log the mapped column values as well, the delta is read from the change log without joining the source table
+	 */
+	public static final String CHANGELOG_PAYLOAD = "PAYLOAD";
+	/**
+	 * Payload capture stores the source columns as they are, hence the column mappings must be bare column names,
+	 * neither expressions nor qualified with a table alias
+	 */
+	private static final Pattern PLAIN_COLUMN_PATTERN = Pattern.compile("\"[^\"]+\"|\\w+");
+	static final String CHANGE_LOG_SUFFIX = "_CHANGE_LOG";
 
 	public HanaTableMapping() {
 		super();
@@ -56,6 +128,22 @@ public class HanaTableMapping {
 		addColumns();
 	}
 
+	/**
+	 * Creates an empty mapping, the columns are added via addColumn() by the caller that read the metadata.
+	 *
+	 * @param mappingname name of the mapping
+	 * @param username Hana user the metadata was read with
+	 * @param dbschema schema of the table
+	 * @param dbtablename name of the table
+	 */
+	HanaTableMapping(String mappingname, String username, String dbschema, String dbtablename) {
+		super();
+		this.hanatablename = dbtablename;
+		this.hanaschema = dbschema;
+		this.username = username;
+		this.mappingname = mappingname;
+	}
+
 	private HanaTableMapping(String username, String mappingname, Connection conn) throws ConnectorRuntimeException {
 		super();
 		this.username = username;
@@ -102,7 +190,6 @@ public class HanaTableMapping {
 				 * Therefore a simplified version of the property tree needs to be created.
 				 */
 				try {
-					mapper.setSerializationInclusion(Include.NON_NULL);
 					mapper.writeValue(file, this);
 				} catch (IOException e) {
 					throw new PropertiesException("Failed to write the json Relational Object Definition file", e, "check filename", file.getName());
@@ -112,125 +199,116 @@ public class HanaTableMapping {
 		}
 	}
 
-	void createTrigger() throws ConnectorRuntimeException {
-		String sql = "select right(trigger_name, 1) from triggers " + 
-				"where subject_table_schema = ? and subject_table_name = ? and trigger_name like subject_table_name || '\\_t\\__' escape '\\'";
-		try (PreparedStatement stmt = conn.prepareStatement(sql);) {
-			stmt.setString(1, hanaschema);
-			stmt.setString(2, getHanatablename());
-			ResultSet rs = stmt.executeQuery();
-			Set<String> existingtriggers = new HashSet<>();
-			while (rs.next()) {
-				existingtriggers.add(rs.getString(1));
-			}
-			if (existingtriggers.size() < 3) {
-				if (getPKColumns() == null || getPKColumns().size() == 0) {
-					throw new ConnectorRuntimeException("This replication technology does only work on tables with primary keys", null, 
-							"Please remove the table specified from the list of tables to be replicated", getHanatablename());
-				} else if (getPKColumns().size() > 6) {
-					throw new ConnectorRuntimeException("Currently only tables with up the six primary keys are allowed", null, 
-							"Please create and issue", getHanatablename());
-				} else {
-					String sourceidentifier = "\"" + hanaschema + "\".\"" + getHanatablename() + "\"";
-					StringBuffer pklist1 = new StringBuffer();
-					StringBuffer pklist2 = new StringBuffer();
-					StringBuffer pklist3 = new StringBuffer();
-					StringBuffer pklistdifferent = new StringBuffer();
-					for (int i = 0; i < getPKColumns().size(); i++) {
-						String pkcolumn = getPKColumns().get(i);
-						if (pkcolumn == null) {
-							throw new ConnectorRuntimeException("The table is not using all primary key columns", null, 
-									"Make sure all pk columns are mapped at least", getHanatablename() + ": " + getPKColumns().toString());
-						}
-						if (i != 0) {
-							pklist1.append(',');
-							pklist2.append(',');
-							pklist3.append(',');
-							pklistdifferent.append(" OR ");
-						}
-						// :c."MANDT",:c."VBELN"
-						pklist1.append(":c.\"");
-						pklist1.append(pkcolumn);
-						pklist1.append('"');
-						// PK1,PK2
-						pklist2.append("PK");
-						pklist2.append(i+1);
-						// :o."MANDT",:o."VBELN"
-						pklist3.append(":c.\"");
-						pklist3.append(pkcolumn);
-						pklist3.append('"');
-						// :o."MANDT" <> :c."MANDT" OR :o."VBELN" <> :c."VBELN"
-						pklistdifferent.append(":o.\"");
-						pklistdifferent.append(pkcolumn);
-						pklistdifferent.append("\" <> :c.\"");
-						pklistdifferent.append(pkcolumn);
-						pklistdifferent.append('"');
-					}
-					if (!existingtriggers.contains("i")) {
-						sql = "CREATE TRIGGER \"" + getHanatablename() + "_t_i\" \r\n" + 
-								" AFTER INSERT ON " + sourceidentifier + " \r\n" + 
-								" REFERENCING NEW ROW c \r\n" + 
-								" FOR EACH ROW \r\n" + 
-								" BEGIN \r\n" + 
-								"     INSERT INTO \"" + username + "\".PKLOG \r\n" +
-								"       (change_ts, schema_name, table_name, change_type, \r\n" +
-								"       transactionid, transaction_seq, \r\n"  +
-								"      " + pklist2.toString() + ") \r\n" + 
-								"     VALUES (now(), '" + hanaschema + "', '" + getHanatablename() + "', 'I', \r\n" +
-								"       CURRENT_UPDATE_TRANSACTION(), CURRENT_UPDATE_STATEMENT_SEQUENCE(), \r\n" +
-								"       " + pklist1.toString() + " ); \r\n" + 
-								" END"; 
-						try (PreparedStatement stmttr = conn.prepareStatement(sql);) {
-							stmttr.execute();
-						}
+	/**
+	 * Deploys the three change logging triggers. Triggers whose fingerprint matches their generated DDL are kept,
+	 * others are replaced with CREATE OR REPLACE TRIGGER, so the table is never without a trigger.<br>
+	 * Only if the columns of a payload change log changed, the triggers are dropped, the change log recreated and the triggers
+	 * created again. Changes of the source table between the drop and the create are not logged, hence these statements are
+	 * executed right after each other with all metadata read upfront.
+	 * 
+	 * @param catalog the existing change objects
+	 * @throws ConnectorRuntimeException in case a trigger cannot be created
+	 */
+	void createTrigger(DeltaObjectCatalog catalog) throws ConnectorRuntimeException {
+		getRowFilter();
+		boolean statementlevel = isStatementTrigger();
+		boolean tablelog = isTableChangeLog();
+		if (getPKColumns() == null || getPKColumns().size() == 0) {
+			throw new ConnectorRuntimeException("This replication technology does only work on tables with primary keys", null, 
+					"Please remove the table specified from the list of tables to be replicated", getHanatablename());
+		} else if (!tablelog && getPKColumns().size() > 6) {
+			throw new ConnectorRuntimeException("The PKLOG supports tables with up the six primary keys only", null, 
+					"Use a table specific change log for this table", getHanatablename());
+		}
+		for (int i = 0; i < getPKColumns().size(); i++) {
+			if (getPKColumns().get(i) == null) {
+				throw new ConnectorRuntimeException("The table is not using all primary key columns", null, 
+						"Make sure all pk columns are mapped at least", getHanatablename() + ": " + getPKColumns().toString());
+			}
+		}
+		if (isPayloadChangeLog()) {
+			if (statementlevel) {
+				throw new ConnectorRuntimeException("The payload change log supports row level triggers only", null, 
+						"Use the triggertype ROW for this table", getHanatablename());
+			}
+		}
+		/*
+		 * The triggers are shared by all mappings of the table, hence filter and columns are derived from all of them
+		 */
+		getSourceTable().validate();
+		triggerfilter = getSourceTable().getTriggerFilter();
+		String sourceidentifier = "\"" + hanaschema + "\".\"" + getHanatablename() + "\"";
+		Map<String, String> ddls;
+		if (statementlevel) {
+			ddls = getStatementTriggerDDL(sourceidentifier);
+		} else if (isPayloadChangeLog()) {
+			ddls = getPayloadTriggerDDL(sourceidentifier);
+		} else {
+			ddls = getRowTriggerDDL(sourceidentifier);
+		}
+		String sql = null;
+		try {
+			Map<String, String> deploy = new LinkedHashMap<>();
+			Map<String, ExistingTrigger> replaced = new HashMap<>();
+			for (Map.Entry<String, String> entry : ddls.entrySet()) {
+				String triggername = getHanatablename() + "_t_" + entry.getKey();
+				String fingerprint = DeltaObjectCatalog.getFingerprint(entry.getValue());
+				ExistingTrigger existing = catalog.getTrigger(hanaschema, getHanatablename(), entry.getKey());
+				if (existing != null) {
+					String deployed = catalog.getFingerprint(hanaschema, getHanatablename(), triggername);
+					if (fingerprint.equals(deployed)) {
+						continue;
+					} else if (deployed == null && existing.isStatementLevel() == statementlevel && existing.isTableChangeLog() == tablelog) {
+						// created before fingerprints were recorded and of the requested kind, keep it
+						catalog.setFingerprint(conn, hanaschema, getHanatablename(), triggername, fingerprint);
+						continue;
 					}
-					if (!existingtriggers.contains("u")) {
-						sql =   "CREATE TRIGGER \"" + getHanatablename() + "_t_u\" \r\n" + 
-								" AFTER UPDATE ON " + sourceidentifier + " \r\n" + 
-								" REFERENCING NEW ROW c, OLD ROW o \r\n" + 
-								" FOR EACH ROW \r\n" + 
-								" BEGIN \r\n" + 
-								"     INSERT INTO \"" + username + "\".PKLOG \r\n" +
-								"       (change_ts, schema_name, table_name, change_type, \r\n" +
-								"       transactionid, transaction_seq, \r\n" +
-								"      " + pklist2.toString() + ") \r\n" + 
-								"     VALUES (now(), '" + hanaschema + "', '" + getHanatablename() + "', 'U', \r\n" +
-								"       CURRENT_UPDATE_TRANSACTION(), CURRENT_UPDATE_STATEMENT_SEQUENCE(), \r\n" +
-								"       " + pklist1.toString() + " ); \r\n" + 
-								"     IF (" + pklistdifferent.toString() + " ) THEN \r\n" + 
-								"       INSERT INTO \"" + username + "\".PKLOG \r\n" +
-								"         (change_ts, schema_name, table_name, change_type, \r\n" +
-								"         transactionid, transaction_seq, \r\n" +
-								"        " + pklist2.toString() + ") \r\n" + 
-								"       VALUES (now(), '" + hanaschema + "', '" + getHanatablename() + "', 'U', \r\n" +
-								"         CURRENT_UPDATE_TRANSACTION(), CURRENT_UPDATE_STATEMENT_SEQUENCE(), \r\n" +
-								"         " + pklist3.toString() + " ); \r\n" + 
-								"     END IF; \r\n" +
-								"END"; 
-						try (PreparedStatement stmttr = conn.prepareStatement(sql);) {
-							stmttr.execute();
+					// the definition of the mapping got changed, replace the trigger
+					replaced.put(entry.getKey(), existing);
+				}
+				deploy.put(entry.getKey(), entry.getValue());
+			}
+			String logtableddl = tablelog && deploy.size() != 0 ? getChangeLogTableDDL(catalog) : null;
+			boolean recreate = logtableddl != null && catalog.hasTable(getChangeLogTableName());
+			if (recreate) {
+				/*
+				 * The existing triggers write into the change log, they have to be dropped before it. All triggers were changed anyhow,
+				 * as the new columns are part of all of them.
+				 */
+				for (Map.Entry<String, String> entry : ddls.entrySet()) {
+					ExistingTrigger existing = catalog.getTrigger(hanaschema, getHanatablename(), entry.getKey());
+					if (existing != null) {
+						sql = "drop trigger \"" + existing.getSchemaname() + "\".\"" + existing.getTriggername() + "\"";
+						try (PreparedStatement stmtdrop = conn.prepareStatement(sql);) {
+							stmtdrop.execute();
 						}
 					}
-					if (!existingtriggers.contains("d")) {
-						sql =   "CREATE TRIGGER \"" + getHanatablename() + "_t_d\" \r\n" + 
-								" AFTER DELETE ON " + sourceidentifier + " \r\n" + 
-								" REFERENCING OLD ROW c \r\n" + 
-								" FOR EACH ROW \r\n" + 
-								" BEGIN \r\n" + 
-								"     INSERT INTO \"" + username + "\".PKLOG \r\n" +
-								"      (change_ts, schema_name, table_name, change_type, \r\n" +
-								"      transactionid, transaction_seq, \r\n" +
-								"      " + pklist2.toString() + ") \r\n" + 
-								"     VALUES (now(), '" + hanaschema + "', '" + getHanatablename() + "', 'D', \r\n" +
-								"       CURRENT_UPDATE_TRANSACTION(), CURRENT_UPDATE_STATEMENT_SEQUENCE(), \r\n" +
-								"       " + pklist1.toString() + " ); \r\n" + 
-								"END"; 
-						try (PreparedStatement stmttr = conn.prepareStatement(sql);) {
-							stmttr.execute();
-						}
+					deploy.put(entry.getKey(), entry.getValue());
+				}
+				replaced.clear();
+			}
+			if (logtableddl != null) {
+				createChangeLogTable(logtableddl, catalog);
+			}
+			for (Map.Entry<String, String> entry : deploy.entrySet()) {
+				String triggername = getHanatablename() + "_t_" + entry.getKey();
+				String ddl = entry.getValue();
+				ExistingTrigger existing = replaced.get(entry.getKey());
+				boolean inplace = existing != null && existing.getSchemaname().equals(username) && existing.getTriggername().equals(triggername);
+				sql = inplace ? "CREATE OR REPLACE TRIGGER" + ddl.substring("CREATE TRIGGER".length()) : ddl;
+				try (PreparedStatement stmttr = conn.prepareStatement(sql);) {
+					stmttr.execute();
+				}
+				if (existing != null && !inplace) {
+					// created by another user or under another name, dropped once the new trigger logs the changes
+					sql = "drop trigger \"" + existing.getSchemaname() + "\".\"" + existing.getTriggername() + "\"";
+					try (PreparedStatement stmtdrop = conn.prepareStatement(sql);) {
+						stmtdrop.execute();
 					}
 				}
-
+				catalog.setFingerprint(conn, hanaschema, getHanatablename(), triggername, DeltaObjectCatalog.getFingerprint(ddl));
+				catalog.addTrigger(hanaschema, getHanatablename(), entry.getKey(), username, triggername, statementlevel, tablelog);
+				logger.debug("Deployed the trigger {}", triggername);
 			}
 		} catch (SQLException e) {
 			throw new ConnectorRuntimeException("Creating the Change Logging triggers failed in the database", e, 
@@ -238,11 +316,508 @@ public class HanaTableMapping {
 		}
 	}
 
+	/**
+	 * @param sourceidentifier the quoted schema and table name
+	 * @return the create statements of the row level triggers per suffix i, u and d
+	 */
+	private Map<String, String> getRowTriggerDDL(String sourceidentifier) {
+		StringBuffer pklist1 = new StringBuffer();
+		StringBuffer pklist3 = new StringBuffer();
+		StringBuffer pklistdifferent = new StringBuffer();
+		for (int i = 0; i < getPKColumns().size(); i++) {
+			String pkcolumn = getPKColumns().get(i);
+			if (i != 0) {
+				pklist1.append(',');
+				pklist3.append(',');
+				pklistdifferent.append(" OR ");
+			}
+			// :c."MANDT",:c."VBELN"
+			pklist1.append(":c.\"");
+			pklist1.append(pkcolumn);
+			pklist1.append('"');
+			// :o."MANDT",:o."VBELN"
+			pklist3.append(":o.\"");
+			pklist3.append(pkcolumn);
+			pklist3.append('"');
+			// :o."MANDT" <> :c."MANDT" OR :o."VBELN" <> :c."VBELN"
+			pklistdifferent.append(":o.\"");
+			pklistdifferent.append(pkcolumn);
+			pklistdifferent.append("\" <> :c.\"");
+			pklistdifferent.append(pkcolumn);
+			pklistdifferent.append('"');
+		}
+		Map<String, String> ddls = new LinkedHashMap<>();
+		ddls.put("i", "CREATE TRIGGER \"" + getHanatablename() + "_t_i\" \r\n" + 
+				" AFTER INSERT ON " + sourceidentifier + " \r\n" + 
+				" REFERENCING NEW ROW c \r\n" + 
+				" FOR EACH ROW \r\n" + 
+				" BEGIN \r\n" + 
+				getFilteredBody(getNewRowFilter(), getLogInsert("I", "VALUES (", pklist1 + " )")) + 
+				" END");
+		/*
+		 * An update is logged if the old or the new row is within the filter, a row leaving the filter is a deletion then
+		 */
+		ddls.put("u", "CREATE TRIGGER \"" + getHanatablename() + "_t_u\" \r\n" + 
+				" AFTER UPDATE ON " + sourceidentifier + " \r\n" + 
+				" REFERENCING NEW ROW c, OLD ROW o \r\n" + 
+				" FOR EACH ROW \r\n" + 
+				" BEGIN \r\n" + 
+				getFilteredBody(getChangedCondition(":o.", ":c."), 
+						getFilteredBody(triggerfilter == null ? null : getNewRowFilter() + " OR " + getOldRowFilter(), 
+						getLogInsert("U", "VALUES (", pklist1 + " )") + 
+						"     IF (" + pklistdifferent.toString() + " ) THEN \r\n" + 
+						getLogInsert("U", "VALUES (", pklist3 + " )") + 
+						"     END IF; \r\n")) +
+				"END");
+		ddls.put("d", "CREATE TRIGGER \"" + getHanatablename() + "_t_d\" \r\n" + 
+				" AFTER DELETE ON " + sourceidentifier + " \r\n" + 
+				" REFERENCING OLD ROW c \r\n" + 
+				" FOR EACH ROW \r\n" + 
+				" BEGIN \r\n" + 
+				getFilteredBody(getNewRowFilter(), getLogInsert("D", "VALUES (", pklist1 + " )")) + 
+				"END");
+		return ddls;
+	}
+
+	/**
+	 * @return the row filter on the transition variable c or null if there is no filter
+	 */
+	private String getNewRowFilter() {
+		return triggerfilter == null ? null : "(" + triggerfilter.qualify(":c.") + ")";
+	}
+
+	/**
+	 * @return the row filter on the transition variable o or null if there is no filter
+	 */
+	private String getOldRowFilter() {
+		return triggerfilter == null ? null : "(" + triggerfilter.qualify(":o.") + ")";
+	}
+
+	/**
+	 * Updates of columns not used by any mapping of the table, e.g. SAP timestamp fields, are not logged. The compared columns are the
+	 * primary key, the mapped and the row filter columns of all mappings. If a mapping uses expressions or LOB columns, every update is logged.
+	 * 
+	 * @param oldqualifier the prefix of the old row's columns, e.g. ":o."
+	 * @param newqualifier the prefix of the new row's columns, e.g. ":c."
+	 * @return a condition true if any compared column differs or null if the columns cannot be compared
+	 */
+	private String getChangedCondition(String oldqualifier, String newqualifier) {
+		List<String> columns = getSourceTable().getComparedColumns();
+		if (columns == null) {
+			return null;
+		}
+		StringBuffer b = new StringBuffer();
+		b.append('(');
+		for (int i = 0; i < columns.size(); i++) {
+			String o = oldqualifier + "\"" + columns.get(i) + "\"";
+			String c = newqualifier + "\"" + columns.get(i) + "\"";
+			if (i != 0) {
+				b.append(" OR ");
+			}
+			// null safe comparison
+			b.append(o).append(" <> ").append(c);
+			b.append(" OR (").append(o).append(" IS NULL AND ").append(c).append(" IS NOT NULL)");
+			b.append(" OR (").append(o).append(" IS NOT NULL AND ").append(c).append(" IS NULL)");
+		}
+		b.append(')');
+		return b.toString();
+	}
+
+	/**
+	 * @param condition the filter condition or null
+	 * @param statements the trigger statements
+	 * @return the statements, executed only if the condition is true
+	 */
+	private static String getFilteredBody(String condition, String statements) {
+		if (condition == null) {
+			return statements;
+		} else {
+			return "   IF " + condition + " THEN \r\n" + 
+					statements + 
+					"   END IF; \r\n";
+		}
+	}
+
+	/**
+	 * Creates the insert statement of a trigger, either into the PKLOG with the key values converted to PK1..PK6 or
+	 * into the table specific change log with the key columns in their source data type.
+	 * 
+	 * @param changetype I, U or D
+	 * @param valuesclause either "VALUES (" or "SELECT " 
+	 * @param keyvalues the key values plus the closing of the values clause
+	 * @return the insert statement
+	 */
+	private String getLogInsert(String changetype, String valuesclause, String keyvalues) {
+		StringBuffer pkcolumns = new StringBuffer();
+		List<String> columns = getCapturedColumns();
+		for (int i = 0; i < columns.size(); i++) {
+			if (i != 0) {
+				pkcolumns.append(',');
+			}
+			if (isTableChangeLog()) {
+				pkcolumns.append('"');
+				pkcolumns.append(columns.get(i));
+				pkcolumns.append('"');
+			} else {
+				pkcolumns.append("PK");
+				pkcolumns.append(i+1);
+			}
+		}
+		if (isTableChangeLog()) {
+			return "     INSERT INTO \"" + username + "\".\"" + getChangeLogTableName() + "\" \r\n" +
+					"       (change_ts, change_type, \r\n" +
+					"       transactionid, transaction_seq, \r\n"  +
+					"      " + pkcolumns.toString() + ") \r\n" + 
+					"     " + valuesclause + "now(), '" + changetype + "', \r\n" +
+					"       CURRENT_UPDATE_TRANSACTION(), CURRENT_UPDATE_STATEMENT_SEQUENCE(), \r\n" +
+					"       " + keyvalues + "; \r\n";
+		} else {
+			return "     INSERT INTO \"" + username + "\".PKLOG \r\n" +
+					"       (change_ts, schema_name, table_name, change_type, \r\n" +
+					"       transactionid, transaction_seq, \r\n"  +
+					"      " + pkcolumns.toString() + ") \r\n" + 
+					"     " + valuesclause + "now(), '" + hanaschema + "', '" + getHanatablename() + "', '" + changetype + "', \r\n" +
+					"       CURRENT_UPDATE_TRANSACTION(), CURRENT_UPDATE_STATEMENT_SEQUENCE(), \r\n" +
+					"       " + keyvalues + "; \r\n";
+		}
+	}
+
+	/**
+	 * The table specific change log has the same structure as the PKLOG but with the primary key columns of the source table
+	 * in their original data types. If it exists already, it is kept.
+	 * 
+	 * @param catalog the existing change objects
+	 * @return the create table statement, null if the existing change log is current
+	 * @throws ConnectorRuntimeException in case the columns of the source table cannot be read
+	 */
+	private String getChangeLogTableDDL(DeltaObjectCatalog catalog) throws ConnectorRuntimeException {
+		boolean exists = catalog.hasTable(getChangeLogTableName());
+		if (exists && !isPayloadChangeLog()) {
+			return null;
+		}
+		String sql = "select column_name, data_type_name, length, scale from table_columns where schema_name = ? and table_name = ?";
+		try {
+			Map<String, String> datatypes = new HashMap<>();
+			try (PreparedStatement stmt = conn.prepareStatement(sql);) {
+				stmt.setString(1, hanaschema);
+				stmt.setString(2, getHanatablename());
+				ResultSet rs = stmt.executeQuery();
+				while (rs.next()) {
+					datatypes.put(rs.getString(1), getHanaDataType(rs.getString(2), rs.getInt(3), rs.getInt(4)));
+				}
+			}
+			StringBuffer b = new StringBuffer();
+			b.append("create column table \"");
+			b.append(getChangeLogTableName());
+			b.append("\" (CHANGE_TS timestamp, CHANGE_TYPE varchar(1), TRANSACTIONID bigint, TRANSACTION_SEQ integer");
+			for (String column : getCapturedColumns()) {
+				String datatype = datatypes.get(column);
+				if (datatype == null) {
+					throw new ConnectorRuntimeException("The mapped column does not exist in the source table", null, 
+							"Check the primary key columns and column mappings", getHanatablename() + "." + column);
+				}
+				b.append(", \"");
+				b.append(column);
+				b.append("\" ");
+				b.append(datatype);
+			}
+			b.append(")");
+			sql = b.toString();
+			/*
+			 * The columns of a payload change log follow the mapping, a changed mapping recreates the table.
+			 */
+			if (exists && DeltaObjectCatalog.getFingerprint(sql).equals(catalog.getFingerprint(hanaschema, getHanatablename(), getChangeLogTableName()))) {
+				return null;
+			}
+			return sql;
+		} catch (SQLException e) {
+			throw new ConnectorRuntimeException("Reading the columns of the source table failed", e, 
+					"Execute the sql as Hana user \"" + username + "\"", sql);
+		}
+	}
+
+	/**
+	 * Creates the change log table, an existing one is dropped first. Its triggers must have been dropped already.
+	 * 
+	 * @param sql the create table statement
+	 * @param catalog the existing change objects
+	 * @throws ConnectorRuntimeException in case the table cannot be created
+	 */
+	private void createChangeLogTable(String sql, DeltaObjectCatalog catalog) throws ConnectorRuntimeException {
+		try {
+			if (catalog.hasTable(getChangeLogTableName())) {
+				logger.info("The columns of the payload change log {} changed, it is recreated and changes not read yet are lost", getChangeLogTableName());
+				try (PreparedStatement stmt = conn.prepareStatement("drop table \"" + getChangeLogTableName() + "\"");) {
+					stmt.execute();
+				}
+			}
+			try (PreparedStatement stmt = conn.prepareStatement(sql);) {
+				stmt.execute();
+			}
+			catalog.addTable(getChangeLogTableName());
+			if (isPayloadChangeLog()) {
+				catalog.setFingerprint(conn, hanaschema, getHanatablename(), getChangeLogTableName(), DeltaObjectCatalog.getFingerprint(sql));
+			}
+		} catch (SQLException e) {
+			throw new ConnectorRuntimeException("Creating the table specific change log failed in the database", e, 
+					"Execute the sql as Hana user \"" + username + "\"", sql);
+		}
+	}
+
+	/**
+	 * In payload capture mode the row level triggers log the primary key and the mapped columns. The update trigger logs the
+	 * new values and, if the primary key got changed, the old values as deletion of the old key.
+	 * 
+	 * @param sourceidentifier the quoted schema and table name
+	 * @return the create statements of the payload capturing triggers per suffix i, u and d
+	 */
+	private Map<String, String> getPayloadTriggerDDL(String sourceidentifier) {
+		StringBuffer newvalues = new StringBuffer();
+		StringBuffer oldvalues = new StringBuffer();
+		StringBuffer pklistdifferent = new StringBuffer();
+		List<String> columns = getCapturedColumns();
+		for (int i = 0; i < columns.size(); i++) {
+			if (i != 0) {
+				newvalues.append(',');
+				oldvalues.append(',');
+			}
+			newvalues.append(":c.\"");
+			newvalues.append(columns.get(i));
+			newvalues.append('"');
+			oldvalues.append(":o.\"");
+			oldvalues.append(columns.get(i));
+			oldvalues.append('"');
+		}
+		for (int i = 0; i < getPKColumns().size(); i++) {
+			if (i != 0) {
+				pklistdifferent.append(" OR ");
+			}
+			pklistdifferent.append(":o.\"");
+			pklistdifferent.append(getPKColumns().get(i));
+			pklistdifferent.append("\" <> :c.\"");
+			pklistdifferent.append(getPKColumns().get(i));
+			pklistdifferent.append('"');
+		}
+		Map<String, String> ddls = new LinkedHashMap<>();
+		String update = getLogInsert("U", "VALUES (", newvalues + " )") + 
+				"     IF (" + pklistdifferent.toString() + " ) THEN \r\n" + 
+				getLogInsert("D", "VALUES (", oldvalues + " )") + 
+				"     END IF; \r\n";
+		if (triggerfilter != null) {
+			// the payload of a row leaving the filter is not logged, only the deletion of its key
+			update = "   IF " + getNewRowFilter() + " THEN \r\n" + 
+					update + 
+					"   ELSEIF " + getOldRowFilter() + " THEN \r\n" + 
+					getLogInsert("D", "VALUES (", oldvalues + " )") + 
+					"   END IF; \r\n";
+		}
+		ddls.put("i", "CREATE TRIGGER \"" + getHanatablename() + "_t_i\" \r\n" + 
+				" AFTER INSERT ON " + sourceidentifier + " \r\n" + 
+				" REFERENCING NEW ROW c \r\n" + 
+				" FOR EACH ROW \r\n" + 
+				" BEGIN \r\n" + 
+				getFilteredBody(getNewRowFilter(), getLogInsert("I", "VALUES (", newvalues + " )")) + 
+				" END");
+		ddls.put("u", "CREATE TRIGGER \"" + getHanatablename() + "_t_u\" \r\n" + 
+				" AFTER UPDATE ON " + sourceidentifier + " \r\n" + 
+				" REFERENCING NEW ROW c, OLD ROW o \r\n" + 
+				" FOR EACH ROW \r\n" + 
+				" BEGIN \r\n" + 
+				getFilteredBody(getChangedCondition(":o.", ":c."), update) + 
+				"END");
+		ddls.put("d", "CREATE TRIGGER \"" + getHanatablename() + "_t_d\" \r\n" + 
+				" AFTER DELETE ON " + sourceidentifier + " \r\n" + 
+				" REFERENCING OLD ROW c \r\n" + 
+				" FOR EACH ROW \r\n" + 
+				" BEGIN \r\n" + 
+				getFilteredBody(getNewRowFilter(), getLogInsert("D", "VALUES (", newvalues + " )")) + 
+				"END");
+		return ddls;
+	}
+
+	/**
+	 * Statement level triggers see all changed rows as transition table and log their keys with a single insert...select.
+	 * The update trigger logs the union of the old and new keys, so a primary key change logs both like the row trigger does.
+	 * 
+	 * @param sourceidentifier the quoted schema and table name
+	 * @return the create statements of the statement level triggers per suffix i, u and d
+	 */
+	private Map<String, String> getStatementTriggerDDL(String sourceidentifier) {
+		String pklist = getPKList();
+		String where = triggerfilter == null ? "" : " where (" + triggerfilter.getPredicate() + ")";
+		Map<String, String> ddls = new LinkedHashMap<>();
+		ddls.put("i", getStatementTriggerDDL("i", "INSERT", "NEW TABLE c", "I", "select " + pklist + " from :c" + where, sourceidentifier));
+		String changed = getChangedCondition("o.", "c.");
+		if (changed == null) {
+			ddls.put("u", getStatementTriggerDDL("u", "UPDATE", "NEW TABLE c, OLD TABLE o", "U", 
+					"select " + pklist + " from :c" + where + " union select " + pklist + " from :o" + where, sourceidentifier));
+		} else {
+			/*
+			 * Rows without a changed column are not logged, a key change is found by the outer join not matching
+			 */
+			StringBuffer pkjoin = new StringBuffer();
+			for (int i = 0; i < getPKColumns().size(); i++) {
+				if (i != 0) {
+					pkjoin.append(" and ");
+				}
+				pkjoin.append("c.\"").append(getPKColumns().get(i)).append("\" = o.\"").append(getPKColumns().get(i)).append('"');
+			}
+			String pk1 = "\"" + getPKColumns().get(0) + "\"";
+			String newfilter = triggerfilter == null ? "" : "(" + triggerfilter.qualify("c.") + ") and ";
+			String oldfilter = triggerfilter == null ? "" : "(" + triggerfilter.qualify("o.") + ") and ";
+			ddls.put("u", getStatementTriggerDDL("u", "UPDATE", "NEW TABLE c, OLD TABLE o", "U", 
+					"select " + getPKList("c.") + " from :c c left outer join :o o on (" + pkjoin + ") " + 
+					"where " + newfilter + "(o." + pk1 + " is null or " + changed + ") union " + 
+					"select " + getPKList("o.") + " from :o o left outer join :c c on (" + pkjoin + ") " + 
+					"where " + oldfilter + "(c." + pk1 + " is null or " + changed + ")", sourceidentifier));
+		}
+		ddls.put("d", getStatementTriggerDDL("d", "DELETE", "OLD TABLE o", "D", "select " + pklist + " from :o" + where, sourceidentifier));
+		return ddls;
+	}
+
+	private String getStatementTriggerDDL(String suffix, String operation, String referencing, String changetype, String keyselect, 
+			String sourceidentifier) {
+		return "CREATE TRIGGER \"" + getHanatablename() + "_t_" + suffix + "\" \r\n" + 
+				" AFTER " + operation + " ON " + sourceidentifier + " \r\n" + 
+				" REFERENCING " + referencing + " \r\n" + 
+				" FOR EACH STATEMENT \r\n" + 
+				" BEGIN \r\n" + 
+				getLogInsert(changetype, "SELECT ", getPKList() + " FROM (" + keyselect + ")") + 
+				" END"; 
+	}
+
+	/**
+	 * @return the change log the triggers write into, PKLOG (default) or TABLE
+	 */
+	public String getChangelog() {
+		return changelog;
+	}
+
+	public void setChangelog(String changelog) {
+		this.changelog = changelog;
+	}
+
+	/**
+	 * @return true if the changes are logged into a table specific change log instead of the PKLOG
+	 */
+	@JsonIgnore
+	public boolean isTableChangeLog() {
+		return CHANGELOG_TABLE.equalsIgnoreCase(changelog) || isPayloadChangeLog();
+	}
+
+	/**
+	 * @return true if the triggers log the after image of the mapped columns into the table specific change log
+	 */
+	@JsonIgnore
+	public boolean isPayloadChangeLog() {
+		return CHANGELOG_PAYLOAD.equalsIgnoreCase(changelog);
+	}
+
+	/**
+	 * @return the columns written into the change log, the primary key columns followed by the mapped columns of all mappings of the table in payload capture mode
+	 */
+	private List<String> getCapturedColumns() {
+		return getSourceTable().getCapturedColumns();
+	}
+
+	/**
+	 * @return all mappings of the producer on the same source table, this mapping only if the producer did not assign them
+	 */
+	private SourceTable getSourceTable() {
+		if (sourcetable == null) {
+			sourcetable = SourceTable.of(this);
+		}
+		return sourcetable;
+	}
+
+	void setSourceTable(SourceTable sourcetable) {
+		this.sourcetable = sourcetable;
+	}
+
+	/**
+	 * @return the parsed filter of this mapping or null if it reads all rows
+	 * @throws ConnectorRuntimeException in case the filter is not a valid predicate
+	 */
+	RowFilter getRowFilter() throws ConnectorRuntimeException {
+		if (rowfilter == null && filter != null && filter.trim().length() != 0) {
+			rowfilter = new RowFilter(filter, getHanatablename());
+		}
+		return rowfilter;
+	}
+
+	/**
+	 * @param m a column mapping
+	 * @return true if the mapping is a bare column name, neither an expression nor qualified
+	 */
+	static boolean isPlainColumn(ColumnMapping m) {
+		return PLAIN_COLUMN_PATTERN.matcher(m.getSql().trim()).matches();
+	}
+
+	/**
+	 * @return the name of the table specific change log, in the schema of the connection user
+	 */
+	@JsonIgnore
+	public String getChangeLogTableName() {
+		return getHanatablename() + CHANGE_LOG_SUFFIX;
+	}
+
+	/**
+	 * @return the poll class defining how often the changes are read, null for STANDARD
+	 */
+	public String getPollclass() {
+		return pollclass;
+	}
+
+	public void setPollclass(String pollclass) {
+		this.pollclass = pollclass;
+	}
+
+	/**
+	 * @return the poll class of this mapping
+	 * @throws IllegalArgumentException if the mapping contains an invalid poll class
+	 */
+	@JsonIgnore
+	public PollClass getPollClass() {
+		return PollClass.parse(pollclass);
+	}
+
+	/**
+	 * @return true if the mapping uses statement level triggers
+	 */
+	@JsonIgnore
+	public boolean isStatementTrigger() {
+		return TRIGGERTYPE_STATEMENT.equalsIgnoreCase(triggertype);
+	}
+
+	/**
+	 * @return the trigger flavour, ROW (default) or STATEMENT
+	 */
+	public String getTriggertype() {
+		return triggertype;
+	}
+
+	public void setTriggertype(String triggertype) {
+		this.triggertype = triggertype;
+	}
+
 	protected void parseValues(HanaTableMapping data) throws ConnectorRuntimeException {
 		this.hanatablename = data.getHanatablename();
 		this.columnmappings = data.getColumnmappings();
 		this.pkcolumns = data.getPKColumns();
 		this.hanaschema = data.getHanaschema();
+		this.fetchsize = data.getFetchsize();
+		this.triggertype = data.getTriggertype();
+		this.pollclass = data.getPollclass();
+		this.changelog = data.getChangelog();
+		this.children = data.getChildren();
+		this.filter = data.getFilter();
+		this.rowfilter = null;
+		try {
+			getPollClass();
+		} catch (IllegalArgumentException e) {
+			throw new ConnectorRuntimeException("The mapping contains an invalid poll class", e, 
+					"Use one of REALTIME, STANDARD, HOURLY", pollclass);
+		}
 	}
 
 	public void setHanatablename(String tablename) {
@@ -265,10 +840,7 @@ public class HanaTableMapping {
 			ResultSet rs = stmt.executeQuery();
 			int columncount = 0;
 			while (rs.next()) {
-				ColumnMapping m = addMapping(rs.getString(1), "\"" + rs.getString(1) + "\"", getHanaDataType(rs.getString(2), rs.getInt(3), rs.getInt(4)));
-				if (rs.getInt(5) != 0) {
-					addPK(rs.getInt(5), m);
-				}
+				addColumn(rs.getString(1), rs.getString(2), rs.getInt(3), rs.getInt(4), rs.getInt(5));
 				columncount++;
 			}
 			if (columncount == 0) {
@@ -281,6 +853,22 @@ public class HanaTableMapping {
 		}
 	}
 
+	/**
+	 * Adds a column as read from the TABLE_COLUMNS view.
+	 *
+	 * @param columnname the Hana column name
+	 * @param datatype the data_type_name
+	 * @param length the column length
+	 * @param scale the column scale
+	 * @param pkposition position within the primary key, 0 if not part of it
+	 */
+	void addColumn(String columnname, String datatype, int length, int scale, int pkposition) {
+		ColumnMapping m = addMapping(columnname, "\"" + columnname + "\"", getHanaDataType(datatype, length, scale));
+		if (pkposition != 0) {
+			addPK(pkposition, m);
+		}
+	}
+
 	public void addPK(int pos, ColumnMapping m) {
 		if (pkcolumns == null) {
 			pkcolumns = new ArrayList<>();
@@ -356,28 +944,92 @@ public class HanaTableMapping {
 		return avroschema;
 	}
 	
+	/**
+	 * Deploys the change objects of this mapping, reading the catalog of existing objects first.
+	 * 
+	 * @throws ConnectorRuntimeException in case an object cannot be created
+	 * @throws SQLException in case the database objects cannot be read
+	 */
 	public void createDeltaObjects() throws ConnectorRuntimeException, SQLException {
-		createTrigger();
-		createView();
-		deltaselect = createSelectDelta().toString();
-		initialselect = createSelectInitial().toString();
+		createDeltaObjects(DeltaObjectCatalog.read(conn));
+		conn.commit();
+	}
+
+	private void createDeltaObjects(DeltaObjectCatalog catalog) throws ConnectorRuntimeException, SQLException {
+		createTrigger(catalog);
+		createView(catalog);
+		if (isBusinessObject()) {
+			for (ChildTableMapping child : children) {
+				prepareChild(child);
+				if (isPayloadChangeLog() || child.isPayloadChangeLog()) {
+					throw new ConnectorRuntimeException("Business objects cannot use the payload change log", null, 
+							"Use the changelog TABLE or PKLOG for the root and all child tables", getName());
+				}
+				child.createTrigger(catalog);
+				child.createView(catalog);
+			}
+			deltaselect = createSelectDeltaObject();
+			deltaselectstaged = null;
+			initialselect = createSelectInitialObject(false);
+			initialselectrange = createSelectInitialObject(true);
+		} else {
+			deltaselect = isPayloadChangeLog() ? createSelectDeltaPayload().toString() : createSelectDelta(false).toString();
+			deltaselectstaged = isTableChangeLog() ? null : createSelectDelta(true).toString();
+			initialselect = createSelectInitial().toString();
+			initialselectrange = initialselect + (rowfilter == null ? "\r\n where " : " and ") + "d.\"$rowid$\" >= ? and d.\"$rowid$\" < ?";
+		}
+		initialconverter = null;
+		deltaconverter = null;
 	}
 
-	private void createView() throws ConnectorRuntimeException {
+	/**
+	 * Creates the delta objects using another connection than the mapping's, so the objects of multiple mappings can be
+	 * created in parallel.
+	 * 
+	 * @param ddlconn the connection to execute the statements with
+	 * @param catalog the existing change objects of all mappings, see DeltaObjectCatalog.read()
+	 * @throws ConnectorRuntimeException in case an object cannot be created
+	 * @throws SQLException in case the database objects cannot be read
+	 */
+	void createDeltaObjects(Connection ddlconn, DeltaObjectCatalog catalog) throws ConnectorRuntimeException, SQLException {
+		Connection c = conn;
+		conn = ddlconn;
 		try {
-			String sql = "drop view \"" + getHanatablename() + "_CHANGE_VIEW\" cascade";
-			CallableStatement callable = conn.prepareCall(sql);
-			callable.execute();
-		} catch (SQLException e) {
-			// ignore views that do not exist
+			createDeltaObjects(catalog);
+		} finally {
+			conn = c;
 		}
+	}
+
+	/**
+	 * Creates the change view unless it exists with the same definition already.
+	 * 
+	 * @param catalog the existing change objects
+	 * @throws ConnectorRuntimeException in case the view cannot be created
+	 */
+	void createView(DeltaObjectCatalog catalog) throws ConnectorRuntimeException {
+		String viewname = getHanatablename() + "_CHANGE_VIEW";
 		StringBuffer sql = new StringBuffer();
 		sql.append("create view \"");
-		sql.append(getHanatablename());
-		sql.append("_CHANGE_VIEW\" as \r\n");
+		sql.append(viewname);
+		sql.append("\" as \r\n");
 		addChangeSQL(sql);
+		String fingerprint = DeltaObjectCatalog.getFingerprint(sql.toString());
+		if (catalog.hasView(viewname)) {
+			if (fingerprint.equals(catalog.getFingerprint(hanaschema, getHanatablename(), viewname))) {
+				return;
+			}
+			try (CallableStatement callable = conn.prepareCall("drop view \"" + viewname + "\" cascade");) {
+				callable.execute();
+			} catch (SQLException e) {
+				// dropped in the meantime
+			}
+		}
 		try (CallableStatement callable = conn.prepareCall(sql.toString());) {
 			callable.execute();
+			catalog.setFingerprint(conn, hanaschema, getHanatablename(), viewname, fingerprint);
+			catalog.addView(viewname);
+			logger.debug("Deployed the view {}", viewname);
 		} catch (SQLException e) {
 			throw new ConnectorRuntimeException("Creating the change view failed", e, 
 					"Execute the sql as Hana user \"" + username + "\"", sql.toString());
@@ -386,6 +1038,13 @@ public class HanaTableMapping {
 	
 	protected void addChangeSQL(StringBuffer sql) {
 		sql.append("select ");
+		if (isTableChangeLog()) {
+			sql.append(getPKList());
+			sql.append(", transactionid as _transactionid, change_ts as _change_ts from \"");
+			sql.append(getChangeLogTableName());
+			sql.append("\"\r\n");
+			return;
+		}
 		for (int i = 0; i < getPKColumns().size(); i++) {
 			sql.append("PK");
 			sql.append(i+1);
@@ -393,14 +1052,19 @@ public class HanaTableMapping {
 			sql.append(getPKColumns().get(i));
 			sql.append("\", ");
 		}
-		sql.append("transactionid as _transactionid from pklog where table_name = '");
+		sql.append("transactionid as _transactionid, change_ts as _change_ts from pklog where table_name = '");
 		sql.append(getHanatablename());
 		sql.append("' and schema_name = '");
 		sql.append(hanaschema);
 		sql.append("'\r\n");
 	}
 
-	private StringBuffer createSelectDelta() {
+	/**
+	 * @param staged if true the changes are read from the window staged by ChangeLogTable.stageWindow(), else from the change view
+	 * @return the delta select, for the change view the parameters are the transaction id range and the lower bound of the change_ts,
+	 * for the staged window the lower bound of the transaction id
+	 */
+	private StringBuffer createSelectDelta(boolean staged) {
 		StringBuffer conditions = createRootJoinCondition(this);
 		StringBuffer select = new StringBuffer();
 		select.append("select ");
@@ -410,14 +1074,33 @@ public class HanaTableMapping {
 		select.append("l._transactionid as _transactionid,\r\n");
 		select.append("d.\"$rowid$\" as \"").append(SchemaConstants.SCHEMA_COLUMN_SOURCE_ROWID).append("\", \r\n");
 		select.append(createProjectionDelta(this, true));
-		select.append("\r\nfrom (select max(_transactionid) as _transactionid, ");
-		select.append(getPKList());
-		select.append(" from \"");
-		select.append(getHanatablename());
-		select.append("_CHANGE_VIEW\" where _transactionid > ? and _transactionid <= ?\r\n");
-		select.append("group by ");
-		select.append(getPKList());
-		select.append(") l \r\n");
+		if (staged) {
+			// the staged rows are grouped by primary key already
+			select.append("\r\nfrom (select transactionid as _transactionid");
+			for (int i = 0; i < getPKColumns().size(); i++) {
+				select.append(", PK");
+				select.append(i+1);
+				select.append(" as \"");
+				select.append(getPKColumns().get(i));
+				select.append("\"");
+			}
+			select.append(" from \"");
+			select.append(ChangeLogTable.WINDOW_TABLE_NAME);
+			select.append("\" where table_name = '");
+			select.append(getHanatablename());
+			select.append("' and schema_name = '");
+			select.append(hanaschema);
+			select.append("' and transactionid > ?) l \r\n");
+		} else {
+			select.append("\r\nfrom (select max(_transactionid) as _transactionid, ");
+			select.append(getPKList());
+			select.append(" from \"");
+			select.append(getHanatablename());
+			select.append("_CHANGE_VIEW\" where _transactionid > ? and _transactionid <= ? and _change_ts >= ?\r\n");
+			select.append("group by ");
+			select.append(getPKList());
+			select.append(") l \r\n");
+		}
 		select.append("left outer join \"");
 		select.append(hanaschema);
 		select.append("\".\"");
@@ -425,10 +1108,347 @@ public class HanaTableMapping {
 		select.append("\" as d\r\n");
 		select.append("on (");
 		select.append(conditions);
+		appendRowFilter(select, this, "d.");
 		select.append(");\r\n");
 		return select;
 	}
 
+	/**
+	 * In payload capture mode the records are built from the latest change log row per primary key within the window,
+	 * the source table is not read. The log rows are aliased d like the source table in the initial load, so the column mappings
+	 * work in both selects. The parameters are the same as for the change view based delta select.
+	 * 
+	 * @return the delta select reading the change log only
+	 */
+	private StringBuffer createSelectDeltaPayload() {
+		StringBuffer select = new StringBuffer();
+		select.append("select case when d.change_type = 'D' then 'D' else 'A' end as _change_type, \r\n");
+		select.append("d.transactionid as _transactionid, \r\n");
+		select.append("cast(null as bigint) as \"").append(SchemaConstants.SCHEMA_COLUMN_SOURCE_ROWID).append("\", \r\n");
+		select.append(createProjectionInitial(this));
+		select.append("\r\nfrom (select c.*, row_number() over (partition by ");
+		select.append(getPKList());
+		select.append(" order by transactionid desc, transaction_seq desc) as _rownumber from \"");
+		select.append(getChangeLogTableName());
+		select.append("\" c where transactionid > ? and transactionid <= ? and change_ts >= ?) d \r\n");
+		select.append("where _rownumber = 1");
+		return select;
+	}
+
+	/**
+	 * Validates the child mapping against this root mapping and hands over the connection.
+	 * 
+	 * @param child a child table of this business object
+	 * @throws ConnectorRuntimeException in case the child cannot be joined to the root via the change logs
+	 */
+	private void prepareChild(ChildTableMapping child) throws ConnectorRuntimeException {
+		HanaTableMapping c = child;
+		c.conn = conn;
+		c.username = username;
+		if (c.hanaschema == null) {
+			c.hanaschema = hanaschema;
+		}
+		if (child.getName() == null) {
+			child.setName(child.getHanatablename());
+		}
+		if (child.getChildren() != null && child.getChildren().size() != 0) {
+			throw new ConnectorRuntimeException("Child tables cannot have child tables themselves", null, 
+					"Add all tables as children of the root table", getName() + ": " + child.getName());
+		} else if (child.getColumnmappings() == null || child.getPKColumns() == null) {
+			throw new ConnectorRuntimeException("The child table mapping has no columns or primary key", null, 
+					"Import the child table and add its columns and pkcolumns", getName() + ": " + child.getName());
+		} else if (child.isTableChangeLog() != isTableChangeLog()) {
+			throw new ConnectorRuntimeException("The child table has to use the same change log as the root table", null, 
+					"Set the same changelog for the root and all child tables", getName() + ": " + child.getName());
+		}
+		for (String pkcolumn : getPKColumns()) {
+			String childcolumn = child.getChildColumn(pkcolumn);
+			if (childcolumn == null || !child.getPKColumns().contains(childcolumn)) {
+				throw new ConnectorRuntimeException("Every root primary key column has to be joined to a primary key column of the child table", null, 
+						"Add the column to the joincolumns of the child", getName() + ": " + child.getName() + "." + pkcolumn);
+			}
+		}
+	}
+
+	/**
+	 * The delta select of a business object. The keys changed in the root or any of the child tables are translated into root keys,
+	 * then a single statement returns for each key the root row followed by its child rows, ordered by the root key.
+	 * The _part column is 0 for the root row and the child number for child rows, see RowConverter.RecordCursor.
+	 * 
+	 * @return the delta select, the parameters are the transaction id range and the change_ts lower bound once per table, see setDeltaParameters()
+	 */
+	private String createSelectDeltaObject() {
+		String pklist = getPKList();
+		StringBuffer select = new StringBuffer();
+		select.append("with l as (select max(_transactionid) as _transactionid, ");
+		select.append(pklist);
+		select.append(" from (\r\n");
+		select.append("select _transactionid, ");
+		select.append(pklist);
+		select.append(" from \"");
+		select.append(getHanatablename());
+		select.append("_CHANGE_VIEW\" where _transactionid > ? and _transactionid <= ? and _change_ts >= ?\r\n");
+		for (ChildTableMapping child : children) {
+			select.append("union all select _transactionid");
+			for (String pkcolumn : getPKColumns()) {
+				select.append(", \"");
+				select.append(child.getChildColumn(pkcolumn));
+				select.append("\" as \"");
+				select.append(pkcolumn);
+				select.append('"');
+			}
+			select.append(" from \"");
+			select.append(child.getHanatablename());
+			select.append("_CHANGE_VIEW\" where _transactionid > ? and _transactionid <= ? and _change_ts >= ?\r\n");
+		}
+		select.append(") x group by ");
+		select.append(pklist);
+		select.append(")\r\n");
+		select.append("select * from (\r\n");
+		select.append("select case when d.\"");
+		select.append(getPKColumns().get(0));
+		select.append("\" is null then 'D' else 'A' end as _change_type, \r\n");
+		select.append("l._transactionid as _transactionid, \r\n");
+		select.append("d.\"$rowid$\" as \"").append(SchemaConstants.SCHEMA_COLUMN_SOURCE_ROWID).append("\", \r\n");
+		select.append(createProjectionDelta(this, true));
+		appendChildProjections(select, -1);
+		select.append(", 0 as _part");
+		appendKeys(select, "l", true);
+		select.append("\r\nfrom l left outer join \"");
+		select.append(hanaschema);
+		select.append("\".\"");
+		select.append(getHanatablename());
+		select.append("\" as d\r\n");
+		select.append("on (");
+		select.append(createRootJoinCondition(this));
+		appendRowFilter(select, this, "d.");
+		select.append(")\r\n");
+		StringBuffer keys = new StringBuffer();
+		keys.append("(select ");
+		for (int i = 0; i < getPKColumns().size(); i++) {
+			if (i != 0) {
+				keys.append(", ");
+			}
+			keys.append('"');
+			keys.append(getPKColumns().get(i));
+			keys.append("\" as \"_KEY");
+			keys.append(i+1);
+			keys.append('"');
+		}
+		keys.append(" from l)");
+		appendChildBranches(select, keys.toString());
+		appendOrderBy(select);
+		return select.toString();
+	}
+
+	/**
+	 * The initial select of a business object, the root rows each followed by their child rows, ordered by the root key.
+	 * 
+	 * @param range true if the select is limited to a range of $rowid$ values of the root table, see setInitialRangeParameters()
+	 * @return the initial select
+	 */
+	private String createSelectInitialObject(boolean range) {
+		String rowidrange = range ? " where \"$rowid$\" >= ? and \"$rowid$\" < ?" : "";
+		if (rowfilter != null) {
+			rowidrange = (range ? rowidrange + " and (" : " where (") + rowfilter.getPredicate() + ")";
+		}
+		StringBuffer select = new StringBuffer();
+		select.append("select * from (\r\n");
+		select.append("select 'I' as _change_type, \r\n");
+		select.append("cast(null as bigint) as _transactionid, \r\n");
+		select.append("d.\"$rowid$\" as \"").append(SchemaConstants.SCHEMA_COLUMN_SOURCE_ROWID).append("\", \r\n");
+		select.append(createProjectionInitial(this));
+		appendChildProjections(select, -1);
+		select.append(", 0 as _part");
+		appendKeys(select, "d", true);
+		select.append("\r\nfrom \"");
+		select.append(hanaschema);
+		select.append("\".\"");
+		select.append(getHanatablename());
+		select.append("\" as d");
+		select.append(rowidrange);
+		select.append("\r\n");
+		StringBuffer keys = new StringBuffer();
+		keys.append("(select ");
+		for (int i = 0; i < getPKColumns().size(); i++) {
+			if (i != 0) {
+				keys.append(", ");
+			}
+			keys.append('"');
+			keys.append(getPKColumns().get(i));
+			keys.append("\" as \"_KEY");
+			keys.append(i+1);
+			keys.append('"');
+		}
+		keys.append(" from \"");
+		keys.append(hanaschema);
+		keys.append("\".\"");
+		keys.append(getHanatablename());
+		keys.append('"');
+		keys.append(rowidrange);
+		keys.append(")");
+		appendChildBranches(select, keys.toString());
+		appendOrderBy(select);
+		return select.toString();
+	}
+
+	/**
+	 * Adds one union all branch per child, reading the child rows joined to the root keys.
+	 * 
+	 * @param select the select to append to
+	 * @param keys a subselect returning the root keys as _KEY1.._KEYn
+	 */
+	private void appendChildBranches(StringBuffer select, String keys) {
+		for (int part = 0; part < children.size(); part++) {
+			ChildTableMapping child = children.get(part);
+			select.append("union all\r\n");
+			select.append("select cast(null as varchar(1)), cast(null as bigint), cast(null as bigint), ");
+			for (int i = 0; i < getColumnmappings().size(); i++) {
+				ColumnMapping column = getColumnmappings().get(i);
+				if (i != 0) {
+					select.append(", ");
+				}
+				int keyindex = getPKColumns().indexOf(column.getTableColumnName());
+				if (keyindex >= 0) {
+					select.append("k.\"_KEY");
+					select.append(keyindex+1);
+					select.append('"');
+				} else {
+					select.append("cast(null as ");
+					select.append(column.getHanadatatype());
+					select.append(')');
+				}
+			}
+			appendChildProjections(select, part);
+			select.append(", ");
+			select.append(part+1);
+			appendKeys(select, "k", false);
+			select.append("\r\nfrom ");
+			select.append(keys);
+			select.append(" k inner join \"");
+			select.append(child.getHanaschema());
+			select.append("\".\"");
+			select.append(child.getHanatablename());
+			select.append("\" as c\r\n");
+			select.append("on (");
+			for (int i = 0; i < getPKColumns().size(); i++) {
+				if (i != 0) {
+					select.append(" and ");
+				}
+				select.append("c.\"");
+				select.append(child.getChildColumn(getPKColumns().get(i)));
+				select.append("\" = k.\"_KEY");
+				select.append(i+1);
+				select.append('"');
+			}
+			appendRowFilter(select, child, "c.");
+			select.append(")\r\n");
+		}
+	}
+
+	/**
+	 * @param select the select to append to
+	 * @param part the child whose columns are selected, the columns of all other children are null
+	 */
+	private void appendChildProjections(StringBuffer select, int part) {
+		for (int i = 0; i < children.size(); i++) {
+			ChildTableMapping child = children.get(i);
+			for (ColumnMapping column : child.getColumnmappings()) {
+				select.append(", ");
+				if (i == part) {
+					select.append(column.getSql());
+				} else {
+					select.append("cast(null as ");
+					select.append(column.getHanadatatype());
+					select.append(')');
+				}
+				select.append(" as \"");
+				select.append(child.getName());
+				select.append('.');
+				select.append(column.getAlias());
+				select.append('"');
+			}
+		}
+	}
+
+	/**
+	 * Adds the row filter of the mapping as additional join condition, rows not within the filter are treated as deleted.
+	 * 
+	 * @param select the select to append to
+	 * @param mapping the root or child mapping
+	 * @param qualifier the alias of the mapping's table including the dot
+	 */
+	private static void appendRowFilter(StringBuffer select, HanaTableMapping mapping, String qualifier) {
+		if (mapping.rowfilter != null) {
+			select.append(" and (");
+			select.append(mapping.rowfilter.qualify(qualifier));
+			select.append(')');
+		}
+	}
+
+	/**
+	 * @param select the select to append to
+	 * @param alias the table alias the keys are read from
+	 * @param rootcolumns true if the keys have the root column names, false if they are named _KEY1.._KEYn already
+	 */
+	private void appendKeys(StringBuffer select, String alias, boolean rootcolumns) {
+		for (int i = 0; i < getPKColumns().size(); i++) {
+			select.append(", ");
+			select.append(alias);
+			select.append(".\"");
+			select.append(rootcolumns ? getPKColumns().get(i) : "_KEY" + (i+1));
+			select.append("\" as \"_KEY");
+			select.append(i+1);
+			select.append('"');
+		}
+	}
+
+	private void appendOrderBy(StringBuffer select) {
+		select.append(") o order by ");
+		for (int i = 0; i < getPKColumns().size(); i++) {
+			select.append("\"_KEY");
+			select.append(i+1);
+			select.append("\", ");
+		}
+		select.append("_part");
+	}
+
+	/**
+	 * Binds the parameters of the delta select, for business objects the window is bound once per table.
+	 * 
+	 * @param stmt the prepared delta select
+	 * @param min_transactionid lower bound, exclusive
+	 * @param max_transactionid upper bound, inclusive
+	 * @param windowstart lower bound of the change_ts
+	 * @throws SQLException in case a parameter cannot be set
+	 */
+	public void setDeltaParameters(PreparedStatement stmt, long min_transactionid, long max_transactionid, Timestamp windowstart) throws SQLException {
+		int tables = isBusinessObject() ? children.size() + 1 : 1;
+		int index = 1;
+		for (int i = 0; i < tables; i++) {
+			stmt.setLong(index++, min_transactionid);
+			stmt.setLong(index++, max_transactionid);
+			stmt.setTimestamp(index++, windowstart);
+		}
+	}
+
+	/**
+	 * Binds the parameters of the initial select range, for business objects the range is bound once per table.
+	 * 
+	 * @param stmt the prepared initial select range
+	 * @param from lower bound of the $rowid$, inclusive
+	 * @param to upper bound of the $rowid$, exclusive
+	 * @throws SQLException in case a parameter cannot be set
+	 */
+	public void setInitialRangeParameters(PreparedStatement stmt, long from, long to) throws SQLException {
+		int tables = isBusinessObject() ? children.size() + 1 : 1;
+		int index = 1;
+		for (int i = 0; i < tables; i++) {
+			stmt.setLong(index++, from);
+			stmt.setLong(index++, to);
+		}
+	}
+
 	private StringBuffer createSelectInitial() {
 		StringBuffer select = new StringBuffer();
 		select.append("select 'I' as _change_type, \r\n");
@@ -440,6 +1460,11 @@ public class HanaTableMapping {
 		select.append("\".\"");
 		select.append(getHanatablename());
 		select.append("\" as d");
+		if (rowfilter != null) {
+			select.append("\r\n where (");
+			select.append(rowfilter.qualify("d."));
+			select.append(")");
+		}
 		return select;
 	}
 
@@ -448,12 +1473,21 @@ public class HanaTableMapping {
 	}
 
 	protected String getPKList() {
+		return getPKList("");
+	}
+
+	/**
+	 * @param qualifier the table alias including the dot
+	 * @return the quoted primary key columns, each prefixed with the qualifier
+	 */
+	private String getPKList(String qualifier) {
 		StringBuffer b = new StringBuffer();
 		for (int i = 0; i < getPKColumns().size(); i++) {
 			String columnname = getPKColumns().get(i);
 			if (i != 0) {
 				b.append(", ");
 			}
+			b.append(qualifier);
 			b.append('"');
 			b.append(columnname);
 			b.append('"');
@@ -550,12 +1584,15 @@ public class HanaTableMapping {
 	protected void createSchema(SchemaBuilder valueschema) throws ConnectorRuntimeException {
 		try {
 			if (getColumnmappings() != null) {
-				for ( ColumnMapping m : getColumnmappings()) {
-					String hanadatatypestring = m.getHanadatatype();
-					String columnname = m.getAlias();
-					AvroField f = valueschema.add(columnname, getDataType(hanadatatypestring), null, true);
-					if (pkcolumns != null && pkcolumns.contains(m.getTableColumnName())) {
-						f.setPrimaryKey();
+				addFields(valueschema);
+				if (isBusinessObject()) {
+					for (ChildTableMapping child : children) {
+						if (child.getColumnmappings() == null) {
+							throw new ConnectorRuntimeException("The child table mapping does not contain any columns!", null, 
+									"Add the columns of the child table", this.getName() + ": " + child.getName());
+						}
+						String name = child.getName() != null ? child.getName() : child.getHanatablename();
+						((HanaTableMapping) child).addFields(valueschema.addColumnRecordArray(name, null, name, null));
 					}
 				}
 				avroschema = valueschema.getSchema();
@@ -569,13 +1606,146 @@ public class HanaTableMapping {
 		}
 	}
 
+	private void addFields(SchemaBuilder builder) throws SchemaBuilderException, ConnectorRuntimeException {
+		for (ColumnMapping m : getColumnmappings()) {
+			AvroField f = builder.add(m.getAlias(), getDataType(m.getHanadatatype()), null, true);
+			if (pkcolumns != null && pkcolumns.contains(m.getTableColumnName())) {
+				f.setPrimaryKey();
+			}
+		}
+	}
+
+	/**
+	 * @return the child tables of this business object, null for a single table mapping
+	 */
+	public List<ChildTableMapping> getChildren() {
+		return children;
+	}
+
+	public void setChildren(List<ChildTableMapping> children) {
+		this.children = children;
+	}
+
+	/**
+	 * @return the row filter predicate on the source table columns, e.g. "MANDT" = '100', null for all rows
+	 */
+	public String getFilter() {
+		return filter;
+	}
+
+	public void setFilter(String filter) {
+		this.filter = filter;
+		this.rowfilter = null;
+	}
+
+	/**
+	 * @return true if the mapping has child tables
+	 */
+	@JsonIgnore
+	public boolean isBusinessObject() {
+		return children != null && children.size() != 0;
+	}
+
 	public List<String> getPKColumns() {
 		return pkcolumns;
 	}
 
+	/**
+	 * @return the fetch size configured for this mapping or null if it should be derived from the row width
+	 */
+	public Integer getFetchsize() {
+		return fetchsize;
+	}
+
+	public void setFetchsize(Integer fetchsize) {
+		this.fetchsize = fetchsize;
+	}
+
+	/**
+	 * @param fetchbytes the number of bytes one round trip should transfer, 0 to use the JDBC driver default
+	 * @return the fetch size to use for the initial and delta selects, 0 means the driver default
+	 */
+	public int getFetchSize(int fetchbytes) {
+		if (fetchsize != null && fetchsize > 0) {
+			return fetchsize;
+		} else if (fetchbytes <= 0) {
+			return 0;
+		} else {
+			int rows = fetchbytes / getEstimatedRowWidth();
+			return Math.max(MIN_FETCH_SIZE, Math.min(MAX_FETCH_SIZE, rows));
+		}
+	}
+
+	/**
+	 * @return the approximate number of bytes of one row as returned by the initial and delta select
+	 */
+	@JsonIgnore
+	public int getEstimatedRowWidth() {
+		if (estimatedrowwidth < 0) {
+			int width = ROW_OVERHEAD;
+			if (getColumnmappings() != null) {
+				for (ColumnMapping m : getColumnmappings()) {
+					width += getEstimatedWidth(m.getHanadatatype());
+				}
+			}
+			estimatedrowwidth = width;
+		}
+		return estimatedrowwidth;
+	}
+
+	private static int getEstimatedWidth(String datatypestring) {
+		Matcher m = DATATYPE_PATTERN.matcher(datatypestring);
+		if (!m.matches()) {
+			return LOB_WIDTH;
+		}
+		String lengthstring = m.group(2);
+		int length = 0;
+		if (lengthstring != null && lengthstring.length() != 0) {
+			length = Integer.valueOf(lengthstring);
+		}
+		switch (m.group(1)) {
+		case "TINYINT":
+		case "BOOLEAN":
+			return 1;
+		case "SMALLINT":
+			return 2;
+		case "INTEGER":
+		case "REAL":
+		case "DATE":
+		case "TIME":
+			return 4;
+		case "BIGINT":
+		case "DOUBLE":
+		case "TIMESTAMP":
+		case "SECONDDATE":
+			return 8;
+		case "DECIMAL":
+		case "SMALLDECIMAL":
+			return 16;
+		case "CHAR":
+		case "VARCHAR":
+		case "NCHAR":
+		case "NVARCHAR":
+		case "ALPHANUM":
+		case "BINARY":
+		case "VARBINARY":
+			return length > 0 ? length : LOB_WIDTH;
+		default:
+			return LOB_WIDTH;
+		}
+	}
+
 	public static Schema getDataType(String datatypestring) throws ConnectorRuntimeException {
-		Pattern p = Pattern.compile("(\\w*)\\s*\\(?\\s*(\\d*)\\s*\\,?\\s*(\\d*)\\s*\\)?.*");  // decimal(10,3) plus spaces anywhere, three groups
-		Matcher m = p.matcher(datatypestring);
+		Schema schema = DATATYPE_CACHE.get(datatypestring);
+		if (schema == null) {
+			schema = parseDataType(datatypestring);
+			DATATYPE_CACHE.put(datatypestring, schema);
+		}
+		return schema;
+	}
+
+	private static Schema parseDataType(String datatypestring) throws ConnectorRuntimeException {
+		Matcher m = DATATYPE_PATTERN.matcher(datatypestring);
 		m.matches();
 		String datatype = m.group(1);
 		String lengthstring = m.group(2);
@@ -653,6 +1823,15 @@ public class HanaTableMapping {
 	public String getDeltaSelect() {
 		return deltaselect;
 	}
+
+	/**
+	 * @return the delta select reading the keys from the staged PKLOG window, the parameter is the exclusive lower bound transaction id.
+	 * Null for mappings with a table specific change log, these are read via the change view always.
+	 */
+	@JsonIgnore
+	public String getDeltaSelectStaged() {
+		return deltaselectstaged;
+	}
 	
 	public static class ColumnMapping {
 		private String alias;
@@ -718,6 +1897,52 @@ public class HanaTableMapping {
 		return initialselect;
 	}
 
+	/**
+	 * @return the initial select limited to a range of $rowid$ values, the two parameters are the lower (inclusive) and upper (exclusive) bound
+	 */
+	@JsonIgnore
+	public String getInitialSelectRange() {
+		return initialselectrange;
+	}
+
+	/**
+	 * @return a select returning the lowest and highest $rowid$ of the source table, used to split the initial load into chunks
+	 */
+	@JsonIgnore
+	public String getRowIdBoundsSelect() {
+		return "select min(\"$rowid$\"), max(\"$rowid$\") from \"" + hanaschema + "\".\"" + getHanatablename() + "\"";
+	}
+
+	/**
+	 * The initial and the delta select return different JDBC types for the primary key columns, hence each has its own plan.
+	 * 
+	 * @param md metadata of the initial load ResultSet, used when the plan is compiled the first time
+	 * @return the conversion plan for the initial select
+	 * @throws SQLException in case the metadata cannot be read
+	 * @throws ConnectorRuntimeException in case the plan cannot be compiled
+	 * @throws SchemaBuilderException in case the Avro schema cannot be built
+	 */
+	public synchronized RowConverter getInitialConverter(ResultSetMetaData md) throws SQLException, ConnectorRuntimeException, SchemaBuilderException {
+		if (initialconverter == null) {
+			initialconverter = isBusinessObject() ? RowConverter.compile(md, getAvroSchema(), this) : RowConverter.compile(md, getAvroSchema());
+		}
+		return initialconverter;
+	}
+
+	/**
+	 * @param md metadata of the delta ResultSet, used when the plan is compiled the first time
+	 * @return the conversion plan for the delta select
+	 * @throws SQLException in case the metadata cannot be read
+	 * @throws ConnectorRuntimeException in case the plan cannot be compiled
+	 * @throws SchemaBuilderException in case the Avro schema cannot be built
+	 */
+	public synchronized RowConverter getDeltaConverter(ResultSetMetaData md) throws SQLException, ConnectorRuntimeException, SchemaBuilderException {
+		if (deltaconverter == null) {
+			deltaconverter = isBusinessObject() ? RowConverter.compile(md, getAvroSchema(), this) : RowConverter.compile(md, getAvroSchema());
+		}
+		return deltaconverter;
+	}
+
 	@Override
 	public String toString() {
 		return hanatablename;
@@ -0,0 +1,244 @@
+package io.rtdi.bigdata.hanaconnector;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilderException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.rtdi.bigdata.connector.connectorframework.exceptions.ConnectorRuntimeException;
+import io.rtdi.bigdata.connector.pipeline.foundation.exceptions.PropertiesException;
+import io.rtdi.bigdata.connector.pipeline.foundation.utils.FileNameEncoder;
+
+/**
+ * Keeps the parsed mapping definitions of a BusinessObjects directory and their Avro schemas in memory.<br>
+ * A WatchService on the directory invalidates the entries of files changed or deleted outside of this class,
+ * changes made via put() and remove() are visible right away.<br>
+ * The cached mappings are shared and must not be modified, the producer reads its own instances via
+ * HanaTableMapping.readDefinition().
+ *
+ */
+public class MappingCache {
+	private static final Logger logger = LogManager.getLogger(MappingCache.class);
+	private static final Map<String, MappingCache> caches = new ConcurrentHashMap<>();
+	private static final String SUFFIX = ".json";
+
+	private final File directory;
+	private final Map<String, CachedMapping> mappings = new ConcurrentHashMap<>();
+	private volatile NavigableSet<String> names = null;
+	/**
+	 * Incremented with every invalidation, so a file read while it got changed is not put into the cache
+	 */
+	private final AtomicLong generation = new AtomicLong();
+	private volatile WatchService watcher = null;
+
+	private MappingCache(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * @param directory the BusinessObjects directory
+	 * @return the cache for this directory
+	 */
+	public static MappingCache getCache(File directory) {
+		return caches.computeIfAbsent(directory.getAbsolutePath(), k -> new MappingCache(directory));
+	}
+
+	/**
+	 * @param name mapping name
+	 * @return the parsed mapping, do not modify it
+	 * @throws PropertiesException in case the file cannot be read or parsed
+	 */
+	public HanaTableMapping getMapping(String name) throws PropertiesException {
+		return getEntry(name).mapping;
+	}
+
+	/**
+	 * @param name mapping name
+	 * @return the Avro schema of the mapping
+	 * @throws IOException in case the file cannot be read or the schema cannot be built
+	 */
+	public Schema getSchema(String name) throws IOException {
+		CachedMapping c = getEntry(name);
+		synchronized (c) {
+			if (c.schema == null) {
+				try {
+					c.schema = c.mapping.getAvroSchema();
+				} catch (SchemaBuilderException e) {
+					throw new ConnectorRuntimeException("Schema cannot be parsed", e, null, name);
+				}
+			}
+			return c.schema;
+		}
+	}
+
+	private CachedMapping getEntry(String name) throws PropertiesException {
+		startWatching();
+		CachedMapping c = mappings.get(name);
+		if (c == null) {
+			long g = generation.get();
+			c = new CachedMapping(HanaTableMapping.readDefinition(null, name, null, directory));
+			if (watcher != null && g == generation.get()) {
+				// without a watcher the cache cannot be invalidated, hence it is not used
+				mappings.put(name, c);
+			}
+		}
+		return c;
+	}
+
+	/**
+	 * @return the names of all mappings or null if the directory does not exist
+	 */
+	public List<String> getNames() {
+		startWatching();
+		NavigableSet<String> n = names;
+		if (n == null) {
+			n = listNames();
+			if (n == null) {
+				return null;
+			} else if (watcher != null) {
+				names = n;
+			}
+		}
+		return new ArrayList<>(n);
+	}
+
+	/**
+	 * Writes the mapping into the directory and updates the cache.
+	 *
+	 * @param mapping the mapping to save
+	 * @throws PropertiesException in case the file cannot be written
+	 */
+	public void put(HanaTableMapping mapping) throws PropertiesException {
+		mapping.write(directory);
+		invalidate(mapping.getName());
+	}
+
+	/**
+	 * Deletes the mapping file and removes it from the cache.
+	 *
+	 * @param name mapping name
+	 * @throws IOException in case the file cannot be deleted
+	 */
+	public void remove(String name) throws IOException {
+		File file = new File(directory, FileNameEncoder.encodeName(name + SUFFIX));
+		java.nio.file.Files.delete(file.toPath());
+		invalidate(name);
+	}
+
+	private void invalidate(String name) {
+		generation.incrementAndGet();
+		mappings.remove(name);
+		NavigableSet<String> n = names;
+		if (n != null) {
+			if (new File(directory, FileNameEncoder.encodeName(name + SUFFIX)).isFile()) {
+				n.add(name);
+			} else {
+				n.remove(name);
+			}
+		}
+	}
+
+	private NavigableSet<String> listNames() {
+		if (directory.isDirectory()) {
+			File[] files = directory.listFiles();
+			NavigableSet<String> ret = new ConcurrentSkipListSet<>();
+			if (files != null) {
+				for (File f : files) {
+					if (f.getName().endsWith(SUFFIX) && f.isFile()) {
+						ret.add(getMappingName(f.getName()));
+					}
+				}
+			}
+			return ret;
+		} else {
+			return null;
+		}
+	}
+
+	private static String getMappingName(String filename) {
+		String name = FileNameEncoder.decodeName(filename);
+		return name.substring(0, name.length()-SUFFIX.length()); // remove the .json ending
+	}
+
+	/**
+	 * The watcher can be started only once the directory exists, until then nothing is cached.
+	 */
+	private synchronized void startWatching() {
+		if (watcher == null && directory.isDirectory()) {
+			try {
+				WatchService w = FileSystems.getDefault().newWatchService();
+				directory.toPath().register(w, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+				Thread t = new Thread(() -> watch(w), "MappingCache-" + directory.getName());
+				t.setDaemon(true);
+				t.start();
+				watcher = w;
+			} catch (IOException e) {
+				logger.info("Cannot watch the directory {}, mappings are not cached", directory, e);
+			}
+		}
+	}
+
+	private void watch(WatchService w) {
+		try {
+			while (true) {
+				WatchKey key = w.take();
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+						generation.incrementAndGet();
+						mappings.clear();
+						names = null;
+					} else {
+						String filename = ((Path) event.context()).getFileName().toString();
+						if (filename.endsWith(SUFFIX)) {
+							String name = getMappingName(filename);
+							logger.debug("Mapping file of {} got changed, removed from cache", name);
+							invalidate(name);
+						}
+					}
+				}
+				if (!key.reset()) {
+					// the directory got deleted
+					synchronized (this) {
+						mappings.clear();
+						names = null;
+						watcher = null;
+					}
+					w.close();
+					return;
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException | IOException e) {
+			synchronized (this) {
+				mappings.clear();
+				names = null;
+				watcher = null;
+			}
+		}
+	}
+
+	private static class CachedMapping {
+		private final HanaTableMapping mapping;
+		private Schema schema;
+
+		private CachedMapping(HanaTableMapping mapping) {
+			this.mapping = mapping;
+		}
+	}
+}
@@ -0,0 +1,245 @@
+package io.rtdi.bigdata.hanaconnector;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.avro.SchemaBuilderException;
+
+import io.rtdi.bigdata.connector.connectorframework.exceptions.ConnectorRuntimeException;
+import io.rtdi.bigdata.connector.pipeline.foundation.avro.JexlGenericData.JexlRecord;
+import io.rtdi.bigdata.hanaconnector.RowConverter.RecordCursor;
+
+/**
+ * Executes select statements on a bounded number of worker threads, each with its own database connection.
+ * The rows are converted by the worker and handed over to the caller via one bounded queue per statement.
+ * Reading the queues in the order the statements were submitted keeps the output deterministic and cannot deadlock,
+ * as the executor starts the statements in the same order. Executions whose order does not matter, like the chunks of an
+ * initial load, share one queue instead, so all workers keep reading while the caller takes the rows.
+ *
+ */
+class ParallelReader implements AutoCloseable {
+	private static final int QUEUE_CAPACITY = 1000;
+	private static final Object END_OF_DATA = new Object();
+
+	private final HanaConnectionProperties props;
+	private final int parallelism;
+	private final ExecutorService executor;
+	/**
+	 * The worker connections along with their prepared statements
+	 */
+	private final BlockingQueue<StatementCache> idleconnections = new LinkedBlockingQueue<>();
+
+	/**
+	 * @param props connection properties used to open the worker connections
+	 * @param parallelism number of statements executed at the same time
+	 * @param threadname prefix for the worker thread names
+	 */
+	ParallelReader(HanaConnectionProperties props, int parallelism, String threadname) {
+		this.props = props;
+		this.parallelism = parallelism;
+		AtomicInteger counter = new AtomicInteger();
+		ThreadFactory factory = r -> {
+			Thread t = new Thread(r, threadname + "-" + counter.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		};
+		this.executor = Executors.newFixedThreadPool(parallelism, factory);
+	}
+
+	/**
+	 * @param sql the select statement, its first column is the change type
+	 * @param binder sets the statement parameters
+	 * @param mapping provides the conversion plan for the rows
+	 * @param initial true if the initial load conversion plan should be used, else the delta plan
+	 * @param fetchsize number of rows per round trip, 0 for the driver default
+	 * @return the queue the rows of this statement are delivered to
+	 */
+	RowQueue submit(String sql, ParameterBinder binder, HanaTableMapping mapping, boolean initial, int fetchsize) {
+		RowQueue queue = new RowQueue(sql, 1, QUEUE_CAPACITY);
+		executor.execute(() -> read(queue, binder, mapping, initial, fetchsize));
+		return queue;
+	}
+
+	/**
+	 * Executes the same statement once per binder. The rows of all executions are delivered to one queue in the order the workers
+	 * read them, so no execution waits for the caller to finish reading another one.
+	 * 
+	 * @param sql the select statement, its first column is the change type
+	 * @param binders sets the statement parameters, one per execution
+	 * @param mapping provides the conversion plan for the rows
+	 * @param initial true if the initial load conversion plan should be used, else the delta plan
+	 * @param fetchsize number of rows per round trip, 0 for the driver default
+	 * @return the queue the rows of all executions are delivered to
+	 */
+	RowQueue submitAll(String sql, List<ParameterBinder> binders, HanaTableMapping mapping, boolean initial, int fetchsize) {
+		RowQueue queue = new RowQueue(sql, binders.size(), QUEUE_CAPACITY * Math.max(1, Math.min(binders.size(), parallelism)));
+		for (ParameterBinder binder : binders) {
+			executor.execute(() -> read(queue, binder, mapping, initial, fetchsize));
+		}
+		return queue;
+	}
+
+	private void read(RowQueue queue, ParameterBinder binder, HanaTableMapping mapping, boolean initial, int fetchsize) {
+		StatementCache c = null;
+		try {
+			c = idleconnections.poll();
+			if (c == null || c.getConnection().isClosed()) {
+				if (c != null) {
+					close(c);
+				}
+				c = new StatementCache(HanaConnectorFactory.getDatabaseConnection(props));
+			}
+			PreparedStatement stmt = c.get(initial ? StatementCache.KIND_INITIAL : StatementCache.KIND_DELTA, mapping.getName(), queue.sql);
+			stmt.setFetchSize(fetchsize);
+			binder.bind(stmt);
+			try (ResultSet rs = stmt.executeQuery();) {
+				RowConverter converter = initial ? mapping.getInitialConverter(rs.getMetaData()) : mapping.getDeltaConverter(rs.getMetaData());
+				RecordCursor cursor = converter.open(rs);
+				while (!queue.isFailed() && cursor.next()) {
+					queue.put(new ExtractedRow(cursor.getChangeType(), cursor.getRecord()));
+				}
+			}
+			c.getConnection().commit(); // end the read transaction so the next statement sees current data
+			idleconnections.add(c);
+			c = null;
+			queue.end();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (Exception e) {
+			queue.fail(e);
+		} finally {
+			if (c != null) {
+				close(c);
+			}
+		}
+	}
+
+	private static void close(StatementCache c) {
+		c.close();
+		try {
+			c.getConnection().close();
+		} catch (SQLException e) {
+		}
+	}
+
+	/**
+	 * Returns the connections of the idle workers to the pool, e.g. between two polls. The workers open new ones when needed.
+	 */
+	void release() {
+		StatementCache c;
+		while ((c = idleconnections.poll()) != null) {
+			close(c);
+		}
+	}
+
+	@Override
+	public void close() {
+		executor.shutdownNow();
+		release();
+	}
+
+	@FunctionalInterface
+	interface ParameterBinder {
+		void bind(PreparedStatement stmt) throws SQLException;
+	}
+
+	static class ExtractedRow {
+		private final String changetype;
+		private final JexlRecord record;
+
+		ExtractedRow(String changetype, JexlRecord record) {
+			this.changetype = changetype;
+			this.record = record;
+		}
+
+		String getChangeType() {
+			return changetype;
+		}
+
+		JexlRecord getRecord() {
+			return record;
+		}
+	}
+
+	static class RowQueue {
+		private final String sql;
+		private final BlockingQueue<Object> rows;
+		/**
+		 * Executions not finished yet, the last one ends the queue
+		 */
+		private final AtomicInteger pending;
+		private volatile Exception error;
+
+		private RowQueue(String sql, int executions, int capacity) {
+			this.sql = sql;
+			this.rows = new ArrayBlockingQueue<>(capacity);
+			this.pending = new AtomicInteger(executions);
+			if (executions == 0) {
+				rows.offer(END_OF_DATA);
+			}
+		}
+
+		private void put(Object row) throws InterruptedException {
+			rows.put(row);
+		}
+
+		private void end() throws InterruptedException {
+			if (pending.decrementAndGet() == 0) {
+				rows.put(END_OF_DATA);
+			}
+		}
+
+		private boolean isFailed() {
+			return error != null;
+		}
+
+		private synchronized void fail(Exception e) {
+			if (error == null) {
+				error = e;
+			}
+			// make room, the consumer stops reading at the error anyhow
+			do {
+				rows.clear();
+			} while (!rows.offer(END_OF_DATA));
+		}
+
+		/**
+		 * @return the next row or null if the statement has returned all rows
+		 * @throws SQLException in case the worker failed executing the statement
+		 * @throws ConnectorRuntimeException in case the worker failed converting the rows
+		 * @throws SchemaBuilderException in case the worker failed building the Avro schema
+		 * @throws InterruptedException in case the waiting for the next row got interrupted
+		 */
+		ExtractedRow take() throws SQLException, ConnectorRuntimeException, SchemaBuilderException, InterruptedException {
+			Object row = rows.take();
+			if (row == END_OF_DATA) {
+				rows.offer(END_OF_DATA); // further calls return null as well
+				if (error instanceof SQLException) {
+					throw (SQLException) error;
+				} else if (error instanceof ConnectorRuntimeException) {
+					throw (ConnectorRuntimeException) error;
+				} else if (error instanceof SchemaBuilderException) {
+					throw (SchemaBuilderException) error;
+				} else if (error != null) {
+					throw new ConnectorRuntimeException("Reading the data in parallel failed", error, null, sql);
+				}
+				return null;
+			} else {
+				return (ExtractedRow) row;
+			}
+		}
+
+		String getSql() {
+			return sql;
+		}
+	}
+}
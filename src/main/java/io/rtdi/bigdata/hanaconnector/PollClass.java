@@ -0,0 +1,49 @@
+package io.rtdi.bigdata.hanaconnector;
+
+/**
+ * Defines how often the changes of a mapping are read. A mapping whose class is not due keeps its own position
+ * and reads all changes since then once it is due again.
+ *
+ */
+public enum PollClass {
+	/**
+	 * Read with every poll
+	 */
+	REALTIME,
+	/**
+	 * Read at most every producer poll interval, the same as REALTIME unless adaptive polling is used
+	 */
+	STANDARD,
+	/**
+	 * Read at most once per hour
+	 */
+	HOURLY;
+
+	/**
+	 * @param props the producer properties
+	 * @return the minimum number of seconds between two reads of this class
+	 */
+	public long getInterval(HanaProducerProperties props) {
+		switch (this) {
+		case REALTIME:
+			return 0;
+		case HOURLY:
+			return 3600;
+		default:
+			return props.getPollInterval();
+		}
+	}
+
+	/**
+	 * @param value the poll class as text, case insensitive
+	 * @return the poll class or STANDARD if value is null or empty
+	 * @throws IllegalArgumentException if the value is not a valid poll class
+	 */
+	public static PollClass parse(String value) {
+		if (value == null || value.length() == 0) {
+			return STANDARD;
+		} else {
+			return valueOf(value.toUpperCase());
+		}
+	}
+}
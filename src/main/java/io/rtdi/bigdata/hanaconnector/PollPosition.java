@@ -0,0 +1,88 @@
+package io.rtdi.bigdata.hanaconnector;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The delta position of the producer, i.e. the transaction id each poll class has read up to.<br>
+ * As long as all classes are at the same transaction id, the position is just this number. Else it is the highest
+ * transaction id followed by the classes lagging behind, e.g. <code>123456;HOURLY=120000</code>.
+ *
+ */
+class PollPosition {
+	private final Map<PollClass, Long> positions = new EnumMap<>(PollClass.class);
+
+	private PollPosition() {
+	}
+
+	/**
+	 * @param position the position as returned by toString()
+	 * @return the parsed position
+	 * @throws NumberFormatException if the position is not valid
+	 */
+	static PollPosition parse(String position) {
+		PollPosition p = new PollPosition();
+		String[] parts = position.split(";");
+		long base = Long.valueOf(parts[0].trim());
+		for (PollClass c : PollClass.values()) {
+			p.positions.put(c, base);
+		}
+		for (int i = 1; i < parts.length; i++) {
+			String[] entry = parts[i].split("=");
+			p.positions.put(PollClass.parse(entry[0].trim()), Long.valueOf(entry[1].trim()));
+		}
+		return p;
+	}
+
+	long get(PollClass c) {
+		return positions.get(c);
+	}
+
+	void set(PollClass c, long transactionid) {
+		positions.put(c, transactionid);
+	}
+
+	/**
+	 * @return the lowest position of all classes, all changes up to it have been read by all classes
+	 */
+	long getLowest() {
+		return getLowest(positions.keySet());
+	}
+
+	/**
+	 * @param classes the poll classes to consider
+	 * @return the lowest position of these classes or Long.MAX_VALUE if the set is empty
+	 */
+	long getLowest(Set<PollClass> classes) {
+		long lowest = Long.MAX_VALUE;
+		for (PollClass c : classes) {
+			lowest = Math.min(lowest, positions.get(c));
+		}
+		return lowest;
+	}
+
+	long getHighest() {
+		long highest = Long.MIN_VALUE;
+		for (long p : positions.values()) {
+			highest = Math.max(highest, p);
+		}
+		return highest;
+	}
+
+	@Override
+	public String toString() {
+		long highest = getHighest();
+		StringBuffer b = new StringBuffer();
+		b.append(highest);
+		for (Map.Entry<PollClass, Long> e : positions.entrySet()) {
+			if (e.getValue() != highest) {
+				b.append(';');
+				b.append(e.getKey().name());
+				b.append('=');
+				b.append(e.getValue());
+			}
+		}
+		return b.toString();
+	}
+}
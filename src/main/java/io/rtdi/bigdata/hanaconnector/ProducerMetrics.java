@@ -0,0 +1,258 @@
+package io.rtdi.bigdata.hanaconnector;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The metrics of one producer instance. The producer thread records them, JMX and the REST API read them.<br>
+ * The registry has one entry per connection and producer name, a restarted producer replaces the entry of the previous instance.
+ *
+ */
+public class ProducerMetrics implements ProducerMetricsMXBean {
+	private static final Logger logger = LogManager.getLogger(ProducerMetrics.class);
+	private static final Map<String, ProducerMetrics> registry = new ConcurrentHashMap<>();
+	/**
+	 * The backlog needs a count over the change logs, hence it is measured once a minute only
+	 */
+	private static final long BACKLOG_INTERVAL = 60000L;
+
+	private final String key;
+	private ObjectName objectname;
+	private volatile long pollcount;
+	private volatile long lastpollnanos;
+	private final LongAdder pollnanostotal = new LongAdder();
+	private volatile long lastwatermarkprobenanos;
+	private volatile long lastimpactedscannanos;
+	private volatile long lastdeltaquerynanos;
+	private volatile long lastemitnanos;
+	private final Map<String, LongAdder> rowsemitted = new ConcurrentHashMap<>();
+	private final Map<String, LongAdder> deltaquerynanos = new ConcurrentHashMap<>();
+	private final Map<String, Double> initialloadrowspersecond = new ConcurrentHashMap<>();
+	private volatile long backlogrows = -1;
+	private volatile long backlogtransactions = -1;
+	private volatile long lastbacklogmeasurement;
+	private volatile long currenttransactionid;
+	private volatile long positiontransactionid;
+
+	private ProducerMetrics(String key) {
+		this.key = key;
+	}
+
+	/**
+	 * Creates the metrics of a producer and registers them in the platform MBeanServer.
+	 *
+	 * @param connectionname name of the connection
+	 * @param producername name of the producer
+	 * @return the new metrics
+	 */
+	public static ProducerMetrics register(String connectionname, String producername) {
+		String key = connectionname + "/" + producername;
+		ProducerMetrics metrics = new ProducerMetrics(key);
+		ProducerMetrics previous = registry.put(key, metrics);
+		if (previous != null) {
+			previous.unregisterMBean();
+		}
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			ObjectName name = new ObjectName("io.rtdi.bigdata.hanaconnector:type=HanaProducer,name=" + ObjectName.quote(key));
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+			server.registerMBean(metrics, name);
+			metrics.objectname = name;
+		} catch (JMException e) {
+			logger.info("Registering the metrics of {} in JMX failed, available via the REST API only", key, e);
+		}
+		return metrics;
+	}
+
+	/**
+	 * @param connectionname name of the connection
+	 * @param producername name of the producer
+	 * @return the metrics of the running producer or null
+	 */
+	public static ProducerMetrics get(String connectionname, String producername) {
+		return registry.get(connectionname + "/" + producername);
+	}
+
+	/**
+	 * Removes the metrics from the registry and JMX, unless a newer producer instance replaced them already.
+	 */
+	public void unregister() {
+		if (registry.remove(key, this)) {
+			unregisterMBean();
+		}
+	}
+
+	private synchronized void unregisterMBean() {
+		if (objectname != null) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectname);
+			} catch (JMException e) {
+				// unregistered already
+			}
+			objectname = null;
+		}
+	}
+
+	/**
+	 * @param watermarkprobenanos time spent finding the highest committed transaction id
+	 * @param impactedscannanos time spent finding the tables with changes
+	 * @param deltaquerynanos time spent in the delta selects
+	 * @param emitnanos time spent sending the rows
+	 * @param totalnanos duration of the poll
+	 */
+	void recordPoll(long watermarkprobenanos, long impactedscannanos, long deltaquerynanos, long emitnanos, long totalnanos) {
+		this.lastwatermarkprobenanos = watermarkprobenanos;
+		this.lastimpactedscannanos = impactedscannanos;
+		this.lastdeltaquerynanos = deltaquerynanos;
+		this.lastemitnanos = emitnanos;
+		this.lastpollnanos = totalnanos;
+		pollnanostotal.add(totalnanos);
+		pollcount++;
+	}
+
+	/**
+	 * @param mappingname the mapping the delta was read for
+	 * @param rows number of rows sent
+	 * @param querynanos time spent in the delta select without the emit time
+	 */
+	void recordDelta(String mappingname, long rows, long querynanos) {
+		rowsemitted.computeIfAbsent(mappingname, k -> new LongAdder()).add(rows);
+		deltaquerynanos.computeIfAbsent(mappingname, k -> new LongAdder()).add(querynanos);
+	}
+
+	/**
+	 * @param mappingname the mapping loaded
+	 * @param rows number of rows loaded
+	 * @param nanos duration of the initial load
+	 */
+	void recordInitialLoad(String mappingname, long rows, long nanos) {
+		initialloadrowspersecond.put(mappingname, nanos > 0 ? rows * 1e9d / nanos : 0d);
+	}
+
+	/**
+	 * @param currenttransactionid the highest committed transaction id in Hana
+	 * @param positiontransactionid the lowest transaction id committed in the producer's position
+	 */
+	void recordPosition(long currenttransactionid, long positiontransactionid) {
+		this.currenttransactionid = currenttransactionid;
+		this.positiontransactionid = positiontransactionid;
+	}
+
+	/**
+	 * @return true if the backlog should be measured again
+	 */
+	boolean isBacklogDue() {
+		return System.currentTimeMillis() - lastbacklogmeasurement >= BACKLOG_INTERVAL;
+	}
+
+	/**
+	 * @param rows change log rows not read yet
+	 * @param transactions transactions not read yet
+	 */
+	void recordBacklog(long rows, long transactions) {
+		this.backlogrows = rows;
+		this.backlogtransactions = transactions;
+		this.lastbacklogmeasurement = System.currentTimeMillis();
+	}
+
+	@Override
+	public long getPollcount() {
+		return pollcount;
+	}
+
+	@Override
+	public long getLastpollmillis() {
+		return TimeUnit.NANOSECONDS.toMillis(lastpollnanos);
+	}
+
+	@Override
+	public long getPollmillistotal() {
+		return TimeUnit.NANOSECONDS.toMillis(pollnanostotal.sum());
+	}
+
+	@Override
+	public long getLastwatermarkprobemillis() {
+		return TimeUnit.NANOSECONDS.toMillis(lastwatermarkprobenanos);
+	}
+
+	@Override
+	public long getLastimpactedscanmillis() {
+		return TimeUnit.NANOSECONDS.toMillis(lastimpactedscannanos);
+	}
+
+	@Override
+	public long getLastdeltaquerymillis() {
+		return TimeUnit.NANOSECONDS.toMillis(lastdeltaquerynanos);
+	}
+
+	@Override
+	public long getLastemitmillis() {
+		return TimeUnit.NANOSECONDS.toMillis(lastemitnanos);
+	}
+
+	@Override
+	public long getRowsemitted() {
+		long rows = 0;
+		for (LongAdder a : rowsemitted.values()) {
+			rows += a.sum();
+		}
+		return rows;
+	}
+
+	@Override
+	public Map<String, Long> getRowsemittedpermapping() {
+		Map<String, Long> ret = new TreeMap<>();
+		rowsemitted.forEach((k, v) -> ret.put(k, v.sum()));
+		return ret;
+	}
+
+	@Override
+	public Map<String, Long> getDeltaquerymillispermapping() {
+		Map<String, Long> ret = new TreeMap<>();
+		deltaquerynanos.forEach((k, v) -> ret.put(k, TimeUnit.NANOSECONDS.toMillis(v.sum())));
+		return ret;
+	}
+
+	@Override
+	public Map<String, Double> getInitialloadrowspersecond() {
+		return new TreeMap<>(initialloadrowspersecond);
+	}
+
+	@Override
+	public long getBacklogrows() {
+		return backlogrows;
+	}
+
+	@Override
+	public long getBacklogtransactions() {
+		return backlogtransactions;
+	}
+
+	@Override
+	public long getCurrenttransactionid() {
+		return currenttransactionid;
+	}
+
+	@Override
+	public long getPositiontransactionid() {
+		return positiontransactionid;
+	}
+
+	@Override
+	public long getTransactionidlag() {
+		return Math.max(0, currenttransactionid - positiontransactionid);
+	}
+}
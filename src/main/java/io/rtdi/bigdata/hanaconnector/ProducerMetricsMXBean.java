@@ -0,0 +1,91 @@
+package io.rtdi.bigdata.hanaconnector;
+
+import java.util.Map;
+
+/**
+ * The JMX view of the producer metrics, registered as io.rtdi.bigdata.hanaconnector:type=HanaProducer,name=connection/producer.
+ * All durations are in milliseconds.
+ *
+ */
+public interface ProducerMetricsMXBean {
+
+	/**
+	 * @return number of poll cycles since the producer got started
+	 */
+	long getPollcount();
+
+	/**
+	 * @return duration of the last poll cycle
+	 */
+	long getLastpollmillis();
+
+	/**
+	 * @return duration of all poll cycles
+	 */
+	long getPollmillistotal();
+
+	/**
+	 * @return time the last poll spent finding the highest committed transaction id and limiting the window
+	 */
+	long getLastwatermarkprobemillis();
+
+	/**
+	 * @return time the last poll spent finding the tables with changes
+	 */
+	long getLastimpactedscanmillis();
+
+	/**
+	 * @return time the last poll spent executing and fetching the delta selects, without the emit time
+	 */
+	long getLastdeltaquerymillis();
+
+	/**
+	 * @return time the last poll spent sending the rows
+	 */
+	long getLastemitmillis();
+
+	/**
+	 * @return rows sent by all deltas
+	 */
+	long getRowsemitted();
+
+	/**
+	 * @return rows sent by all deltas per mapping
+	 */
+	Map<String, Long> getRowsemittedpermapping();
+
+	/**
+	 * @return time spent in the delta select per mapping, without the emit time
+	 */
+	Map<String, Long> getDeltaquerymillispermapping();
+
+	/**
+	 * @return rows per second of the last initial load per mapping
+	 */
+	Map<String, Double> getInitialloadrowspersecond();
+
+	/**
+	 * @return change log rows not read yet, -1 if not measured yet
+	 */
+	long getBacklogrows();
+
+	/**
+	 * @return transactions in the change logs not read yet, -1 if not measured yet
+	 */
+	long getBacklogtransactions();
+
+	/**
+	 * @return the highest committed transaction id in Hana as of the last poll
+	 */
+	long getCurrenttransactionid();
+
+	/**
+	 * @return the lowest transaction id committed in the producer's position as of the last poll
+	 */
+	long getPositiontransactionid();
+
+	/**
+	 * @return the difference between the current and the position transaction id
+	 */
+	long getTransactionidlag();
+}
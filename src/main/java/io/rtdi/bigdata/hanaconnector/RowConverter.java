@@ -0,0 +1,328 @@
+package io.rtdi.bigdata.hanaconnector;
+
+import java.sql.JDBCType;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+
+import io.rtdi.bigdata.connector.connectorframework.exceptions.ConnectorRuntimeException;
+import io.rtdi.bigdata.connector.pipeline.foundation.avro.JexlGenericData.JexlRecord;
+import io.rtdi.bigdata.connector.pipeline.foundation.utils.AvroNameEncoder;
+import io.rtdi.bigdata.hanaconnector.HanaTableMapping.ColumnMapping;
+
+/**
+ * The conversion plan from a JDBC ResultSet into an Avro record.
+ * All metadata lookups - column type, Avro field name and position - are done once when the plan is compiled,
+ * converting a row is then just a loop over typed accessors bound to the column index and the Avro field position.<br>
+ * For business objects the select returns the root row followed by the rows of the child tables, the _part column tells
+ * which table a row belongs to. The RecordCursor combines these rows into one record.
+ *
+ */
+public class RowConverter {
+	/**
+	 * The first two columns of the initial and delta select are the change type and the transaction id, the payload starts with column 3
+	 */
+	public static final int FIRST_PAYLOAD_COLUMN = 3;
+
+	private final Schema schema;
+	private final ColumnConverter[] converters;
+	/**
+	 * The plans of the child tables of a business object, null for a single table
+	 */
+	private final ChildConverter[] children;
+	private final int partcolumn;
+
+	private RowConverter(Schema schema, ColumnConverter[] converters, ChildConverter[] children, int partcolumn) {
+		this.schema = schema;
+		this.converters = converters;
+		this.children = children;
+		this.partcolumn = partcolumn;
+	}
+
+	/**
+	 * @param md the metadata of the select statement
+	 * @param schema Avro schema the records are created for
+	 * @return the compiled plan for converting the rows of the ResultSet
+	 * @throws SQLException in case the metadata cannot be read
+	 * @throws ConnectorRuntimeException in case a column has no matching Avro field or its datatype is not supported
+	 */
+	public static RowConverter compile(ResultSetMetaData md, Schema schema) throws SQLException, ConnectorRuntimeException {
+		List<ColumnConverter> l = new ArrayList<>();
+		for (int i=FIRST_PAYLOAD_COLUMN; i<=md.getColumnCount(); i++) {
+			String columnname = md.getColumnLabel(i);
+			String avrofieldname = AvroNameEncoder.encodeName(columnname);
+			Field f = schema.getField(avrofieldname);
+			if (f == null) {
+				throw new ConnectorRuntimeException("The select statement returns a column the Avro schema does not have", null,
+						"Please create an issue", columnname + " -> " + avrofieldname);
+			}
+			l.add(createColumnConverter(i, f.pos(), JDBCType.valueOf(md.getColumnType(i)), md.getColumnName(i)));
+		}
+		return new RowConverter(schema, l.toArray(new ColumnConverter[l.size()]), null, 0);
+	}
+
+	/**
+	 * @param md the metadata of the business object select, the root columns followed by the columns of each child and the _part column
+	 * @param schema Avro schema the records are created for
+	 * @param mapping the business object mapping the select was created for
+	 * @return the compiled plan for converting the rows of the ResultSet
+	 * @throws SQLException in case the metadata cannot be read
+	 * @throws ConnectorRuntimeException in case a column has no matching Avro field or its datatype is not supported
+	 */
+	public static RowConverter compile(ResultSetMetaData md, Schema schema, HanaTableMapping mapping) throws SQLException, ConnectorRuntimeException {
+		int column = FIRST_PAYLOAD_COLUMN;
+		ColumnConverter[] root = compile(md, schema, mapping.getColumnmappings(), column);
+		column += root.length;
+		ChildConverter[] children = new ChildConverter[mapping.getChildren().size()];
+		for (int i = 0; i < children.length; i++) {
+			ChildTableMapping child = mapping.getChildren().get(i);
+			Field f = schema.getField(AvroNameEncoder.encodeName(child.getName()));
+			if (f == null) {
+				throw new ConnectorRuntimeException("The Avro schema has no array for the child table", null,
+						"Please create an issue", child.getName());
+			}
+			Schema childschema = getRecordSchema(f.schema());
+			ColumnConverter[] c = compile(md, childschema, child.getColumnmappings(), column);
+			column += c.length;
+			children[i] = new ChildConverter(f.pos(), childschema, c);
+		}
+		return new RowConverter(schema, root, children, column);
+	}
+
+	private static ColumnConverter[] compile(ResultSetMetaData md, Schema schema, List<ColumnMapping> columns, int firstcolumn) throws SQLException, ConnectorRuntimeException {
+		ColumnConverter[] converters = new ColumnConverter[columns.size()];
+		for (int j = 0; j < converters.length; j++) {
+			int i = firstcolumn + j;
+			String avrofieldname = AvroNameEncoder.encodeName(columns.get(j).getAlias());
+			Field f = schema.getField(avrofieldname);
+			if (f == null) {
+				throw new ConnectorRuntimeException("The select statement returns a column the Avro schema does not have", null,
+						"Please create an issue", md.getColumnLabel(i) + " -> " + avrofieldname);
+			}
+			converters[j] = createColumnConverter(i, f.pos(), JDBCType.valueOf(md.getColumnType(i)), md.getColumnName(i));
+		}
+		return converters;
+	}
+
+	/**
+	 * @param s the schema of an array field, possibly nullable
+	 * @return the record schema of the array elements
+	 */
+	private static Schema getRecordSchema(Schema s) {
+		switch (s.getType()) {
+		case UNION:
+			for (Schema t : s.getTypes()) {
+				if (t.getType() != Schema.Type.NULL) {
+					return getRecordSchema(t);
+				}
+			}
+			return s;
+		case ARRAY:
+			return getRecordSchema(s.getElementType());
+		default:
+			return s;
+		}
+	}
+
+	private static ColumnConverter createColumnConverter(int i, int pos, JDBCType t, String columnname) throws ConnectorRuntimeException {
+		switch (t) {
+		case BIGINT:
+			return (rs, r) -> {
+				long v = rs.getLong(i);
+				r.put(pos, rs.wasNull() ? null : v);
+			};
+		case BINARY:
+		case BLOB:
+		case LONGVARBINARY:
+		case VARBINARY:
+			return (rs, r) -> r.put(pos, rs.getBytes(i));
+		case BOOLEAN:
+			return (rs, r) -> {
+				boolean v = rs.getBoolean(i);
+				r.put(pos, rs.wasNull() ? null : v);
+			};
+		case CHAR:
+		case CLOB:
+		case LONGNVARCHAR:
+		case LONGVARCHAR:
+		case NCHAR:
+		case NCLOB:
+		case NVARCHAR:
+		case VARCHAR:
+			return (rs, r) -> r.put(pos, trim(rs.getString(i)));
+		case DATE:
+			return (rs, r) -> r.put(pos, rs.getDate(i));
+		case DECIMAL:
+			return (rs, r) -> r.put(pos, rs.getBigDecimal(i));
+		case DOUBLE:
+			return (rs, r) -> {
+				double v = rs.getDouble(i);
+				r.put(pos, rs.wasNull() ? null : v);
+			};
+		case FLOAT:
+		case REAL:
+			return (rs, r) -> {
+				float v = rs.getFloat(i);
+				r.put(pos, rs.wasNull() ? null : v);
+			};
+		case INTEGER:
+		case SMALLINT:
+		case TINYINT:
+			return (rs, r) -> {
+				int v = rs.getInt(i);
+				r.put(pos, rs.wasNull() ? null : v);
+			};
+		case TIME:
+			return (rs, r) -> r.put(pos, rs.getTime(i));
+		case TIMESTAMP:
+		case TIMESTAMP_WITH_TIMEZONE:
+		case TIME_WITH_TIMEZONE:
+			return (rs, r) -> r.put(pos, rs.getTimestamp(i));
+		default:
+			throw new ConnectorRuntimeException("The select statement returns a datatype the connector cannot handle", null,
+					"Please create an issue", columnname + ":" + t.getName());
+		}
+	}
+
+	/**
+	 * @param rs ResultSet positioned on the row to convert
+	 * @return a new Avro record with all payload columns of the current row
+	 * @throws SQLException in case reading a value fails
+	 */
+	public JexlRecord convert(ResultSet rs) throws SQLException {
+		JexlRecord r = new JexlRecord(schema);
+		for (ColumnConverter c : converters) {
+			c.convert(rs, r);
+		}
+		return r;
+	}
+
+	public Schema getSchema() {
+		return schema;
+	}
+
+	/**
+	 * @param rs the ResultSet of the select this plan got compiled for
+	 * @return a cursor returning one record per row, for business objects one record per root row including its child rows
+	 */
+	public RecordCursor open(ResultSet rs) {
+		return new RecordCursor(rs);
+	}
+
+	/**
+	 * Iterates over the records of a ResultSet. For business objects the rows are ordered by the root key and the root row
+	 * comes first, hence the record is complete once the next root row is reached.
+	 *
+	 */
+	public class RecordCursor {
+		private final ResultSet rs;
+		/**
+		 * True if the ResultSet is positioned on the root row of the next record already
+		 */
+		private boolean positioned = false;
+		private boolean done = false;
+		private String changetype;
+		private JexlRecord record;
+
+		private RecordCursor(ResultSet rs) {
+			this.rs = rs;
+		}
+
+		/**
+		 * @return true if another record was read
+		 * @throws SQLException in case reading the rows fails
+		 */
+		public boolean next() throws SQLException {
+			if (done) {
+				return false;
+			} else if (children == null) {
+				if (!rs.next()) {
+					done = true;
+					return false;
+				}
+				changetype = rs.getString(1);
+				record = convert(rs);
+				return true;
+			}
+			if (!positioned) {
+				do {
+					if (!rs.next()) {
+						done = true;
+						return false;
+					}
+				} while (rs.getInt(partcolumn) != 0); // child rows without a root row cannot be sent
+			}
+			positioned = false;
+			changetype = rs.getString(1);
+			record = convert(rs);
+			List<List<JexlRecord>> childrows = new ArrayList<>(children.length);
+			for (ChildConverter c : children) {
+				List<JexlRecord> rows = new ArrayList<>();
+				childrows.add(rows);
+				record.put(c.pos, rows);
+			}
+			while (rs.next()) {
+				int part = rs.getInt(partcolumn);
+				if (part == 0) {
+					positioned = true;
+					return true;
+				}
+				childrows.get(part - 1).add(children[part - 1].convert(rs));
+			}
+			done = true;
+			return true;
+		}
+
+		/**
+		 * @return the change type of the current record
+		 */
+		public String getChangeType() {
+			return changetype;
+		}
+
+		/**
+		 * @return the current record
+		 */
+		public JexlRecord getRecord() {
+			return record;
+		}
+	}
+
+	private static class ChildConverter {
+		private final int pos;
+		private final Schema schema;
+		private final ColumnConverter[] converters;
+
+		private ChildConverter(int pos, Schema schema, ColumnConverter[] converters) {
+			this.pos = pos;
+			this.schema = schema;
+			this.converters = converters;
+		}
+
+		private JexlRecord convert(ResultSet rs) throws SQLException {
+			JexlRecord r = new JexlRecord(schema);
+			for (ColumnConverter c : converters) {
+				c.convert(rs, r);
+			}
+			return r;
+		}
+	}
+
+	private static String trim(String value) {
+		if (value == null || value.length() == 0) {
+			return null;
+		} else {
+			return value;
+		}
+	}
+
+	@FunctionalInterface
+	private interface ColumnConverter {
+		void convert(ResultSet rs, JexlRecord r) throws SQLException;
+	}
+}
@@ -0,0 +1,168 @@
+package io.rtdi.bigdata.hanaconnector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import io.rtdi.bigdata.connector.connectorframework.exceptions.ConnectorRuntimeException;
+
+/**
+ * The row filter of a mapping, a SQL predicate on the source table like <code>"MANDT" = '100' and "BUKRS" in ('1000', '2000')</code>.<br>
+ * The column names have to be quoted and must not be qualified, as the same predicate is used in the triggers, where the columns are
+ * read from the transition variables, and in the selects, where the source table has the alias d.<br>
+ * An unquoted word is accepted only as SQL keyword or as function name, anything else would be a column the
+ * qualification cannot find.
+ *
+ */
+class RowFilter {
+	private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList("AND", "OR", "NOT", "IN", "IS", "NULL", "LIKE", "ESCAPE",
+			"BETWEEN", "TRUE", "FALSE", "UNKNOWN", "CASE", "WHEN", "THEN", "ELSE", "END", "CURRENT_DATE", "CURRENT_TIME",
+			"CURRENT_TIMESTAMP", "CURRENT_UTCDATE", "CURRENT_UTCTIME", "CURRENT_UTCTIMESTAMP", "CURRENT_USER", "CURRENT_SCHEMA",
+			"DATE", "TIME", "TIMESTAMP"));
+	private final String predicate;
+
+	/**
+	 * @param predicate the filter of the mapping
+	 * @param context the mapping name for the error message
+	 * @throws ConnectorRuntimeException in case the predicate uses unquoted or qualified column names or is not a single predicate
+	 */
+	RowFilter(String predicate, String context) throws ConnectorRuntimeException {
+		this.predicate = predicate.trim();
+		int pos = 0;
+		while (pos < this.predicate.length()) {
+			char c = this.predicate.charAt(pos);
+			if (c == '\'' || c == '"') {
+				if (c == '"' && pos > 0 && this.predicate.charAt(pos-1) == '.') {
+					throw new ConnectorRuntimeException("The row filter must use unqualified column names", null,
+							"Remove the table alias from the column names", context + ": " + predicate);
+				}
+				pos = skipQuoted(pos, c);
+				if (pos == -1) {
+					throw new ConnectorRuntimeException("The row filter has an unterminated quote", null,
+							"Close all string literals and column names", context + ": " + predicate);
+				}
+			} else if (c == ';') {
+				throw new ConnectorRuntimeException("The row filter must be a single predicate", null,
+						"Remove the semicolon from the filter", context + ": " + predicate);
+			} else if (Character.isLetter(c) || c == '_') {
+				int end = skipWord(pos);
+				String word = this.predicate.substring(pos, end);
+				int next = end;
+				while (next < this.predicate.length() && Character.isWhitespace(this.predicate.charAt(next))) {
+					next++;
+				}
+				boolean function = next < this.predicate.length() && this.predicate.charAt(next) == '(';
+				if (!function && !KEYWORDS.contains(word.toUpperCase())) {
+					throw new ConnectorRuntimeException("The row filter must use quoted column names", null,
+							"Write the column " + word + " in double quotes and upper case, e.g. \"MANDT\" = '100'", context + ": " + predicate);
+				}
+				pos = end;
+			} else if (Character.isDigit(c)) {
+				// numbers like 1e5 or 1.5
+				pos = skipWord(pos);
+			} else {
+				pos++;
+			}
+		}
+	}
+
+	/**
+	 * @return the predicate as is, e.g. for the transition tables of statement level triggers
+	 */
+	String getPredicate() {
+		return predicate;
+	}
+
+	/**
+	 * @return the names of the columns used in the predicate
+	 */
+	List<String> getColumns() {
+		List<String> columns = new ArrayList<>();
+		int pos = 0;
+		while (pos < predicate.length()) {
+			char c = predicate.charAt(pos);
+			if (c == '\'' || c == '"') {
+				int end = skipQuoted(pos, c);
+				if (c == '"') {
+					String column = predicate.substring(pos+1, end-1).replace("\"\"", "\"");
+					if (!columns.contains(column)) {
+						columns.add(column);
+					}
+				}
+				pos = end;
+			} else {
+				pos++;
+			}
+		}
+		return columns;
+	}
+
+	/**
+	 * @param qualifier the prefix of every column, e.g. "d." or ":c."
+	 * @return the predicate with all columns qualified
+	 */
+	String qualify(String qualifier) {
+		StringBuffer b = new StringBuffer();
+		int pos = 0;
+		while (pos < predicate.length()) {
+			char c = predicate.charAt(pos);
+			if (c == '\'' || c == '"') {
+				int end = skipQuoted(pos, c);
+				if (c == '"') {
+					b.append(qualifier);
+				}
+				b.append(predicate, pos, end);
+				pos = end;
+			} else {
+				b.append(c);
+				pos++;
+			}
+		}
+		return b.toString();
+	}
+
+	/**
+	 * @param start position of the first character
+	 * @return the position after the identifier or number
+	 */
+	private int skipWord(int start) {
+		int pos = start + 1;
+		while (pos < predicate.length()) {
+			char c = predicate.charAt(pos);
+			if (Character.isLetterOrDigit(c) || c == '_' || c == '#' || c == '$' || c == '.') {
+				pos++;
+			} else {
+				break;
+			}
+		}
+		return pos;
+	}
+
+	/**
+	 * @param start position of the opening quote
+	 * @param quote the quote character, a doubled quote is an escaped one
+	 * @return the position after the closing quote or -1 if the quote is not closed
+	 */
+	private int skipQuoted(int start, char quote) {
+		int pos = start + 1;
+		while (pos < predicate.length()) {
+			if (predicate.charAt(pos) == quote) {
+				if (pos + 1 < predicate.length() && predicate.charAt(pos+1) == quote) {
+					pos += 2;
+				} else {
+					return pos + 1;
+				}
+			} else {
+				pos++;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public String toString() {
+		return predicate;
+	}
+}
@@ -0,0 +1,243 @@
+package io.rtdi.bigdata.hanaconnector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import io.rtdi.bigdata.connector.connectorframework.exceptions.ConnectorRuntimeException;
+import io.rtdi.bigdata.hanaconnector.HanaTableMapping.ColumnMapping;
+
+/**
+ * All mappings reading the same Hana table, root tables and child tables of business objects alike.<br>
+ * The triggers and the change log exist once per table and Hana user, hence they are shared by all producers of the connection.
+ * Their row filter and columns are derived from all mapping files of the connection, so the generated DDL is the same no matter
+ * which producer and mapping deploys it. If a mapping file cannot be read, the triggers neither filter nor compare columns.
+ *
+ */
+class SourceTable {
+	/**
+	 * Data types the update triggers cannot compare, a mapping with such a column logs every update
+	 */
+	private static final Set<String> NON_COMPARABLE_TYPES = new HashSet<>(Arrays.asList("BLOB", "CLOB", "NCLOB", "TEXT", "BINTEXT", "ST_GEOMETRY", "ST_POINT"));
+
+	private final String name;
+	/**
+	 * The mappings of this producer, their triggers are deployed by it
+	 */
+	private final List<HanaTableMapping> mappings = new ArrayList<>();
+	/**
+	 * The mappings of the connection not used by this producer, read only
+	 */
+	private final List<HanaTableMapping> othermappings = new ArrayList<>();
+	private boolean complete = true;
+	private boolean validated = false;
+	private RowFilter triggerfilter;
+	private List<String> comparedcolumns;
+	private List<String> capturedcolumns;
+
+	private SourceTable(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * @param mapping a single mapping, used when its delta objects are created without the producer knowing the other mappings
+	 * @return a source table with this mapping only
+	 */
+	static SourceTable of(HanaTableMapping mapping) {
+		SourceTable t = new SourceTable(mapping.getHanatablename());
+		t.mappings.add(mapping);
+		return t;
+	}
+
+	/**
+	 * Assigns the source table to every root and child mapping and groups the root mappings so that all mappings sharing a table,
+	 * directly or via their child tables, are in the same group. Each group can deploy its triggers independent of the others.
+	 *
+	 * @param roots the root mappings of the producer
+	 * @param others the other mappings of the connection, their tables are not deployed but shape the shared triggers
+	 * @param complete false if not all mapping files of the connection could be read
+	 * @return the root mappings grouped by the tables they share
+	 */
+	static Collection<List<HanaTableMapping>> group(Collection<HanaTableMapping> roots, Collection<HanaTableMapping> others, boolean complete) {
+		Map<String, SourceTable> tables = new HashMap<>();
+		Map<SourceTable, List<HanaTableMapping>> groups = new HashMap<>();
+		for (HanaTableMapping root : roots) {
+			List<HanaTableMapping> group = new ArrayList<>();
+			group.add(root);
+			for (HanaTableMapping m : getTableMappings(root)) {
+				String schema = m.getHanaschema() != null ? m.getHanaschema() : root.getHanaschema();
+				SourceTable t = tables.computeIfAbsent("\"" + schema + "\".\"" + m.getHanatablename() + "\"", k -> new SourceTable(m.getHanatablename()));
+				t.mappings.add(m);
+				m.setSourceTable(t);
+				List<HanaTableMapping> other = groups.get(t);
+				if (other != null && other != group) {
+					// merge the other group into this one
+					group.addAll(other);
+					for (Map.Entry<SourceTable, List<HanaTableMapping>> e : groups.entrySet()) {
+						if (e.getValue() == other) {
+							e.setValue(group);
+						}
+					}
+				}
+				groups.put(t, group);
+			}
+		}
+		for (HanaTableMapping root : others) {
+			for (HanaTableMapping m : getTableMappings(root)) {
+				String schema = m.getHanaschema() != null ? m.getHanaschema() : root.getHanaschema();
+				SourceTable t = tables.get("\"" + schema + "\".\"" + m.getHanatablename() + "\"");
+				if (t != null) {
+					t.othermappings.add(m);
+				}
+			}
+		}
+		for (SourceTable t : tables.values()) {
+			t.complete = complete;
+		}
+		Set<List<HanaTableMapping>> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+		distinct.addAll(groups.values());
+		return distinct;
+	}
+
+	private static List<HanaTableMapping> getTableMappings(HanaTableMapping root) {
+		List<HanaTableMapping> l = new ArrayList<>();
+		l.add(root);
+		if (root.getChildren() != null) {
+			l.addAll(root.getChildren());
+		}
+		return l;
+	}
+
+	/**
+	 * @return the filter of the triggers, the filters of all mappings OR-ed, null if any mapping reads all rows
+	 */
+	RowFilter getTriggerFilter() {
+		return triggerfilter;
+	}
+
+	/**
+	 * @return the columns the update triggers compare, the primary key, mapped and filter columns of all mappings,
+	 * null if any mapping uses expressions or LOB columns
+	 */
+	List<String> getComparedColumns() {
+		return comparedcolumns;
+	}
+
+	/**
+	 * @return the columns written into the change log, the primary key columns followed by the mapped columns of all mappings in payload capture mode
+	 */
+	List<String> getCapturedColumns() {
+		return capturedcolumns;
+	}
+
+	/**
+	 * Derives the trigger filter and columns from all mappings, the getters return valid values only after this call.
+	 * 
+	 * @throws ConnectorRuntimeException in case the mappings of the table cannot share the triggers
+	 */
+	synchronized void validate() throws ConnectorRuntimeException {
+		if (validated) {
+			return;
+		}
+		for (HanaTableMapping m : mappings) {
+			if (m.getPKColumns() == null || m.getPKColumns().size() == 0 || m.getColumnmappings() == null) {
+				throw new ConnectorRuntimeException("This replication technology does only work on tables with primary keys", null, 
+						"Please remove the table specified from the list of tables to be replicated", name + ": " + m.getName());
+			}
+		}
+		/*
+		 * The order of the mappings depends on the order they were read, sorting makes the DDL and hence its fingerprint stable
+		 */
+		List<HanaTableMapping> sorted = new ArrayList<>(mappings);
+		for (HanaTableMapping m : othermappings) {
+			if (m.getPKColumns() != null && m.getPKColumns().size() != 0 && m.getColumnmappings() != null) {
+				sorted.add(m);
+			}
+		}
+		sorted.sort(Comparator.comparing(m -> m.getName() == null ? m.getHanatablename() : m.getName()));
+		HanaTableMapping first = sorted.get(0);
+		Set<String> predicates = new TreeSet<>();
+		boolean allrows = false;
+		List<String> compared = new ArrayList<>(first.getPKColumns());
+		List<String> captured = new ArrayList<>(first.getPKColumns());
+		for (HanaTableMapping m : sorted) {
+			if (m.isStatementTrigger() != first.isStatementTrigger() || m.isTableChangeLog() != first.isTableChangeLog()
+					|| m.isPayloadChangeLog() != first.isPayloadChangeLog()) {
+				throw new ConnectorRuntimeException("All mappings of the same table share the triggers and must use the same triggertype and changelog", null,
+						"Set the same triggertype and changelog in all mapping files of this table, also those of other producers", 
+						name + ": " + first.getName() + ", " + m.getName());
+			}
+			RowFilter filter = m.getFilter() == null || m.getFilter().trim().length() == 0 ? null : new RowFilter(m.getFilter(), m.getName());
+			if (filter == null) {
+				allrows = true;
+			} else {
+				predicates.add(filter.getPredicate());
+				if (compared != null) {
+					addAll(compared, filter.getColumns());
+				}
+			}
+			for (ColumnMapping c : m.getColumnmappings()) {
+				boolean plain = HanaTableMapping.isPlainColumn(c);
+				if (m.isPayloadChangeLog()) {
+					if (!plain) {
+						throw new ConnectorRuntimeException("The payload change log supports column mappings without expressions only", null,
+								"Use the changelog TABLE for this table", m.getName() + ": " + c.getSql());
+					}
+					addAll(captured, List.of(c.getTableColumnName()));
+				}
+				if (compared != null) {
+					if (!plain || c.getHanadatatype() == null || NON_COMPARABLE_TYPES.contains(c.getHanadatatype())) {
+						compared = null;
+					} else {
+						addAll(compared, List.of(c.getTableColumnName()));
+					}
+				}
+			}
+		}
+		if (!complete) {
+			// a mapping not known might read all rows or any column
+			allrows = true;
+			compared = null;
+		}
+		if (allrows || predicates.size() == 0) {
+			triggerfilter = null;
+		} else if (predicates.size() == 1) {
+			triggerfilter = new RowFilter(predicates.iterator().next(), name);
+		} else {
+			StringBuffer b = new StringBuffer();
+			for (String p : predicates) {
+				if (b.length() != 0) {
+					b.append(" or ");
+				}
+				b.append('(').append(p).append(')');
+			}
+			triggerfilter = new RowFilter(b.toString(), name);
+		}
+		comparedcolumns = compared;
+		capturedcolumns = captured;
+		validated = true;
+	}
+
+	private static void addAll(List<String> columns, List<String> add) {
+		for (String column : add) {
+			if (!columns.contains(column)) {
+				columns.add(column);
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+}
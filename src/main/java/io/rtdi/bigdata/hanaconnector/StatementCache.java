@@ -0,0 +1,106 @@
+package io.rtdi.bigdata.hanaconnector;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Keeps the prepared statements of one connection open, so recurring statements like the ones in each poll cycle are
+ * parsed only once. The statements are identified by a key of statement kind and mapping name, if the SQL text for a
+ * key changed, e.g. because the mapping was redefined, the statement is prepared again.<br>
+ * The cache belongs to the connection, when the connection is replaced a new cache has to be created.
+ *
+ */
+class StatementCache implements AutoCloseable {
+	static final String KIND_IMPACTED = "impacted";
+	static final String KIND_MAXTRANSACTIONID = "maxtransactionid";
+	static final String KIND_CURRENTTRANSACTIONID = "currenttransactionid";
+	static final String KIND_DELTAINFO = "deltainfo";
+	static final String KIND_WINDOWCLEAR = "windowclear";
+	static final String KIND_WINDOWSTAGE = "windowstage";
+	static final String KIND_WINDOWLIMIT = "windowlimit";
+	static final String KIND_BACKLOG = "backlog";
+	static final String KIND_DELTA = "delta";
+	static final String KIND_INITIAL = "initial";
+
+	private final Connection conn;
+	private final Map<String, CachedStatement> statements = new HashMap<>();
+
+	StatementCache(Connection conn) {
+		this.conn = conn;
+	}
+
+	/**
+	 * @param kind the type of statement, one of the KIND constants
+	 * @param mappingname the mapping the statement belongs to or null for statements not specific to a mapping
+	 * @param sql the SQL text
+	 * @return an open prepared statement for this SQL, do not close it
+	 * @throws SQLException in case the statement cannot be prepared
+	 */
+	synchronized PreparedStatement get(String kind, String mappingname, String sql) throws SQLException {
+		String key = mappingname == null ? kind : kind + ":" + mappingname;
+		CachedStatement c = statements.get(key);
+		if (c != null) {
+			if (c.sql.equals(sql) && !c.stmt.isClosed()) {
+				return c.stmt;
+			} else {
+				closeQuietly(c.stmt);
+			}
+		}
+		PreparedStatement stmt = conn.prepareStatement(sql);
+		statements.put(key, new CachedStatement(sql, stmt));
+		return stmt;
+	}
+
+	/**
+	 * Closes all statements of a mapping, e.g. because the mapping got redefined.
+	 *
+	 * @param mappingname name of the mapping
+	 */
+	synchronized void invalidate(String mappingname) {
+		String suffix = ":" + mappingname;
+		Iterator<Map.Entry<String, CachedStatement>> iter = statements.entrySet().iterator();
+		while (iter.hasNext()) {
+			Map.Entry<String, CachedStatement> e = iter.next();
+			if (e.getKey().endsWith(suffix)) {
+				closeQuietly(e.getValue().stmt);
+				iter.remove();
+			}
+		}
+	}
+
+	Connection getConnection() {
+		return conn;
+	}
+
+	/**
+	 * Closes all cached statements, the connection itself is left open.
+	 */
+	@Override
+	public synchronized void close() {
+		for (CachedStatement c : statements.values()) {
+			closeQuietly(c.stmt);
+		}
+		statements.clear();
+	}
+
+	private static void closeQuietly(PreparedStatement stmt) {
+		try {
+			stmt.close();
+		} catch (SQLException e) {
+		}
+	}
+
+	private static class CachedStatement {
+		private final String sql;
+		private final PreparedStatement stmt;
+
+		private CachedStatement(String sql, PreparedStatement stmt) {
+			this.sql = sql;
+			this.stmt = stmt;
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package io.rtdi.bigdata.hanaconnector.rest;
+
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.servlet.ServletContext;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Configuration;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import io.rtdi.bigdata.connector.connectorframework.WebAppController;
+import io.rtdi.bigdata.connector.connectorframework.controller.ConnectionController;
+import io.rtdi.bigdata.connector.connectorframework.controller.ConnectorController;
+import io.rtdi.bigdata.connector.connectorframework.exceptions.ConnectorRuntimeException;
+import io.rtdi.bigdata.connector.connectorframework.rest.JAXBErrorResponseBuilder;
+import io.rtdi.bigdata.connector.connectorframework.servlet.ServletSecurityConstants;
+import io.rtdi.bigdata.hanaconnector.HanaConnectionPool;
+import io.rtdi.bigdata.hanaconnector.HanaConnectionProperties;
+import io.rtdi.bigdata.hanaconnector.ProducerMetrics;
+
+@Path("/")
+public class MonitoringService {
+	@Context
+    private Configuration configuration;
+
+	@Context 
+	private ServletContext servletContext;
+
+	public MonitoringService() {
+	}
+			
+	@GET
+	@Path("/connections/{connectionname}/pool")
+    @Produces(MediaType.APPLICATION_JSON)
+	@RolesAllowed({ServletSecurityConstants.ROLE_VIEW})
+    public Response getPoolStatistics(@PathParam("connectionname") String connectionname) {
+		try {
+			ConnectorController connector = WebAppController.getConnectorOrFail(servletContext);
+			ConnectionController connection = connector.getConnectionOrFail(connectionname);
+			HanaConnectionProperties props = (HanaConnectionProperties) connection.getConnectionProperties();
+			return Response.ok(new PoolStatistics(HanaConnectionPool.getPool(props))).build();
+		} catch (Exception e) {
+			return JAXBErrorResponseBuilder.getJAXBResponse(e);
+		}
+	}
+
+	@GET
+	@Path("/connections/{connectionname}/producers/{producername}/metrics")
+    @Produces(MediaType.APPLICATION_JSON)
+	@RolesAllowed({ServletSecurityConstants.ROLE_VIEW})
+    public Response getProducerMetrics(@PathParam("connectionname") String connectionname, @PathParam("producername") String producername) {
+		try {
+			ConnectorController connector = WebAppController.getConnectorOrFail(servletContext);
+			ConnectionController connection = connector.getConnectionOrFail(connectionname);
+			HanaConnectionProperties props = (HanaConnectionProperties) connection.getConnectionProperties();
+			ProducerMetrics metrics = ProducerMetrics.get(props.getName(), producername);
+			if (metrics == null) {
+				throw new ConnectorRuntimeException("No metrics for this producer", null, 
+						"Metrics are available while the producer is running only", producername);
+			}
+			return Response.ok(metrics).build();
+		} catch (Exception e) {
+			return JAXBErrorResponseBuilder.getJAXBResponse(e);
+		}
+	}
+
+	public static class PoolStatistics {
+		private int poolsize;
+		private int active;
+		private int idle;
+		private long borrowcount;
+		private long waittimetotal;
+		private long waittimemax;
+		private long createdcount;
+		private long evictedcount;
+
+		public PoolStatistics() {
+			super();
+		}
+
+		public PoolStatistics(HanaConnectionPool pool) {
+			super();
+			this.poolsize = pool.getPoolSize();
+			this.active = pool.getActiveCount();
+			this.idle = pool.getIdleCount();
+			this.borrowcount = pool.getBorrowCount();
+			this.waittimetotal = pool.getWaitTimeTotal();
+			this.waittimemax = pool.getWaitTimeMax();
+			this.createdcount = pool.getCreatedCount();
+			this.evictedcount = pool.getEvictedCount();
+		}
+
+		public int getPoolsize() {
+			return poolsize;
+		}
+
+		public int getActive() {
+			return active;
+		}
+
+		public int getIdle() {
+			return idle;
+		}
+
+		public long getBorrowcount() {
+			return borrowcount;
+		}
+
+		public long getWaittimetotal() {
+			return waittimetotal;
+		}
+
+		public long getWaittimemax() {
+			return waittimemax;
+		}
+
+		public long getCreatedcount() {
+			return createdcount;
+		}
+
+		public long getEvictedcount() {
+			return evictedcount;
+		}
+	}
+}
@@ -9,6 +9,7 @@ import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.Configuration;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
@@ -17,9 +18,11 @@ import jakarta.ws.rs.core.Response;
 import io.rtdi.bigdata.connector.connectorframework.WebAppController;
 import io.rtdi.bigdata.connector.connectorframework.controller.ConnectionController;
 import io.rtdi.bigdata.connector.connectorframework.controller.ConnectorController;
+import io.rtdi.bigdata.connector.connectorframework.exceptions.ConnectorRuntimeException;
 import io.rtdi.bigdata.connector.connectorframework.rest.JAXBErrorResponseBuilder;
 import io.rtdi.bigdata.connector.connectorframework.rest.JAXBSuccessResponseBuilder;
 import io.rtdi.bigdata.connector.connectorframework.servlet.ServletSecurityConstants;
+import io.rtdi.bigdata.hanaconnector.CatalogImport;
 import io.rtdi.bigdata.hanaconnector.HanaBrowse;
 import io.rtdi.bigdata.hanaconnector.HanaConnectionProperties;
 import io.rtdi.bigdata.hanaconnector.HanaTableMapping;
@@ -27,6 +30,9 @@ import io.rtdi.bigdata.hanaconnector.HanaBrowse.TableImport;
 
 @Path("/")
 public class SourceTableService {
+	private static final int MAX_PAGE_SIZE = 10000;
+	private static final int DEFAULT_PAGE_SIZE = 1000;
+
 	@Context
     private Configuration configuration;
 
@@ -40,12 +46,25 @@ public class SourceTableService {
 	@Path("/connections/{connectionname}/sourcetables")
     @Produces(MediaType.APPLICATION_JSON)
 	@RolesAllowed({ServletSecurityConstants.ROLE_VIEW})
-    public Response getFiles(@PathParam("connectionname") String connectionname, @PathParam("name") String name) {
+    public Response getFiles(@PathParam("connectionname") String connectionname,
+    		@QueryParam("schema") String schemapattern,
+    		@QueryParam("table") String tablepattern,
+    		@QueryParam("afterschema") String afterschema,
+    		@QueryParam("aftertable") String aftertable,
+    		@QueryParam("limit") Integer limit) {
 		try {
 			ConnectorController connector = WebAppController.getConnectorOrFail(servletContext);
 			ConnectionController connection = connector.getConnectionOrFail(connectionname);
 			HanaBrowse browser = (HanaBrowse) connection.getBrowser();
-			return Response.ok(browser.getHanaTables()).build();
+			if (schemapattern == null && tablepattern == null && afterschema == null && aftertable == null && limit == null) {
+				// the plain list of all tables as the UI reads it
+				return Response.ok(browser.getHanaTables()).build();
+			}
+			int pagesize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+			if (pagesize <= 0 || pagesize > MAX_PAGE_SIZE) {
+				throw new ConnectorRuntimeException("The page size must be between 1 and " + MAX_PAGE_SIZE, null, null, String.valueOf(pagesize));
+			}
+			return Response.ok(browser.getHanaTables(schemapattern, tablepattern, afterschema, aftertable, pagesize)).build();
 		} catch (Exception e) {
 			return JAXBErrorResponseBuilder.getJAXBResponse(e);
 		}
@@ -60,13 +79,45 @@ public class SourceTableService {
 			ConnectorController connector = WebAppController.getConnectorOrFail(servletContext);
 			ConnectionController connection = connector.getConnectionOrFail(connectionname);
 			HanaConnectionProperties props = (HanaConnectionProperties) connection.getConnectionProperties();
-			String dbuser = props.getUsername();
 			HanaBrowse browser = (HanaBrowse) connection.getBrowser();
-			for (TableImport t : data) {
-				HanaTableMapping entity = new HanaTableMapping(t.getMappingname(), dbuser, t.getHanaschemaname(), t.getHanatablename(), browser.getConnection());
-				entity.write(browser.getBusinessObjectDirectory());
+			CatalogImport job = new CatalogImport(props, browser.getBusinessObjectDirectory(), data);
+			job.run();
+			if (!CatalogImport.STATUS_FINISHED.equals(job.getStatus())) {
+				throw new ConnectorRuntimeException(job.getMessage(), null, "Check the permissions and if the tables exist", job.getErrors().toString());
+			}
+			return JAXBSuccessResponseBuilder.getJAXBResponse(job.getMessage());
+		} catch (Exception e) {
+			return JAXBErrorResponseBuilder.getJAXBResponse(e);
+		}
+	}
+
+	@POST
+	@Path("/connections/{connectionname}/sourcetableimports")
+    @Produces(MediaType.APPLICATION_JSON)
+	@RolesAllowed({ServletSecurityConstants.ROLE_CONFIG})
+    public Response startImport(@PathParam("connectionname") String connectionname, List<TableImport> data) {
+		try {
+			ConnectorController connector = WebAppController.getConnectorOrFail(servletContext);
+			ConnectionController connection = connector.getConnectionOrFail(connectionname);
+			HanaConnectionProperties props = (HanaConnectionProperties) connection.getConnectionProperties();
+			HanaBrowse browser = (HanaBrowse) connection.getBrowser();
+			return Response.ok(new CatalogImport(props, browser.getBusinessObjectDirectory(), data).start()).build();
+		} catch (Exception e) {
+			return JAXBErrorResponseBuilder.getJAXBResponse(e);
+		}
+	}
+
+	@GET
+	@Path("/connections/{connectionname}/sourcetableimports/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+	@RolesAllowed({ServletSecurityConstants.ROLE_VIEW})
+    public Response getImport(@PathParam("connectionname") String connectionname, @PathParam("id") String id) {
+		try {
+			CatalogImport job = CatalogImport.getJob(id);
+			if (job == null) {
+				throw new ConnectorRuntimeException("No import job with this id found", null, "Jobs are kept only until newer ones replace them", id);
 			}
-			return JAXBSuccessResponseBuilder.getJAXBResponse("Saved " + data.size() + " table schemas");
+			return Response.ok(job).build();
 		} catch (Exception e) {
 			return JAXBErrorResponseBuilder.getJAXBResponse(e);
 		}
@@ -100,7 +151,7 @@ public class SourceTableService {
 			ConnectorController connector = WebAppController.getConnectorOrFail(servletContext);
 			ConnectionController connection = connector.getConnectionOrFail(connectionname);
 			HanaBrowse browser = (HanaBrowse) connection.getBrowser();
-			data.write(browser.getBusinessObjectDirectory());
+			browser.setBusinessObject(data);
 			return JAXBSuccessResponseBuilder.getJAXBResponse("Saved");
 		} catch (Exception e) {
 			return JAXBErrorResponseBuilder.getJAXBResponse(e);
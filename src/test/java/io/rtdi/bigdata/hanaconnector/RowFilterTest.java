@@ -0,0 +1,66 @@
+package io.rtdi.bigdata.hanaconnector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import io.rtdi.bigdata.connector.connectorframework.exceptions.ConnectorRuntimeException;
+
+public class RowFilterTest {
+
+	@Test
+	public void testQualify() throws ConnectorRuntimeException {
+		RowFilter filter = new RowFilter(" \"MANDT\" = '100' and \"BUKRS\" in ('1000', 'a\"b') ", "test");
+		assertEquals("\"MANDT\" = '100' and \"BUKRS\" in ('1000', 'a\"b')", filter.getPredicate());
+		assertEquals("d.\"MANDT\" = '100' and d.\"BUKRS\" in ('1000', 'a\"b')", filter.qualify("d."));
+		assertEquals(":c.\"MANDT\" = '100' and :c.\"BUKRS\" in ('1000', 'a\"b')", filter.qualify(":c."));
+	}
+
+	@Test
+	public void testQualifyFunctionsAndKeywords() throws ConnectorRuntimeException {
+		RowFilter filter = new RowFilter("upper(\"NAME\") like 'A%' and \"CHANGED\" >= add_days(current_date, -10) and \"AMOUNT\" > 1.5e3 and \"X\" is not null", "test");
+		assertEquals("upper(d.\"NAME\") like 'A%' and d.\"CHANGED\" >= add_days(current_date, -10) and d.\"AMOUNT\" > 1.5e3 and d.\"X\" is not null",
+				filter.qualify("d."));
+	}
+
+	@Test
+	public void testGetColumns() throws ConnectorRuntimeException {
+		RowFilter filter = new RowFilter("\"MANDT\" = '100' and (\"BUKRS\" = '1000' or \"MANDT\" = '200') and \"A\"\"B\" = 'x''\"y'", "test");
+		assertEquals(List.of("MANDT", "BUKRS", "A\"B"), filter.getColumns());
+	}
+
+	@Test
+	public void testUnquotedColumn() {
+		assertRejected("MANDT = '100'");
+		assertRejected("\"MANDT\" = '100' and bukrs = '1000'");
+		assertRejected("d.MANDT = '100'");
+	}
+
+	@Test
+	public void testQualifiedColumn() {
+		assertRejected("d.\"MANDT\" = '100'");
+	}
+
+	@Test
+	public void testUnterminatedQuote() {
+		assertRejected("\"MANDT\" = '100");
+		assertRejected("\"MANDT = '100'");
+	}
+
+	@Test
+	public void testMultipleStatements() {
+		assertRejected("\"MANDT\" = '100'; delete from pklog");
+	}
+
+	private static void assertRejected(String predicate) {
+		try {
+			new RowFilter(predicate, "test");
+			fail("The row filter " + predicate + " must be rejected");
+		} catch (ConnectorRuntimeException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,279 @@
+package io.rtdi.bigdata.hanaconnector.benchmark;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.Date;
+import java.sql.JDBCType;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.generic.GenericData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.rtdi.bigdata.connector.pipeline.foundation.avro.JexlGenericData.JexlRecord;
+import io.rtdi.bigdata.hanaconnector.HanaTableMapping;
+import io.rtdi.bigdata.hanaconnector.HanaTableMapping.ColumnMapping;
+import io.rtdi.bigdata.hanaconnector.RowConverter;
+import io.rtdi.bigdata.hanaconnector.RowConverter.RecordCursor;
+import io.rtdi.bigdata.kafka.avro.AvroSerializer;
+import io.rtdi.bigdata.kafka.avro.SchemaConstants;
+
+/**
+ * Throughput of converting initial load rows into Avro records with the RowConverter, and of converting plus serializing them
+ * the way addRow() does before the record is sent. The tables are modeled after typical SAP tables: narrow key tables, 300 column
+ * wide tables, DECIMAL heavy finance tables and tables with LOB columns.<br>
+ * Run via <code>mvn -P benchmark test-compile exec:exec</code>, the GC profiler reports the allocation rate per row
+ * as gc.alloc.rate.norm.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowConversionBenchmark {
+	private static final int ROWS = 1000;
+	private static final int SCHEMA_ID = 1;
+
+	@Param({"NARROW", "WIDE", "DECIMAL", "LOB"})
+	private String shape;
+
+	private List<String> labels;
+	private List<JDBCType> types;
+	private Object[][] rows;
+	private RowConverter converter;
+	/**
+	 * The metadata columns addRow() sets and their values, these are not part of the select
+	 */
+	private Map<Integer, Object> metadata;
+
+	@Setup
+	public void setup() throws Exception {
+		HanaTableMapping mapping = createMapping(shape);
+		Schema schema = mapping.getAvroSchema();
+		labels = new ArrayList<>(Arrays.asList("_CHANGE_TYPE", "_TRANSACTIONID", SchemaConstants.SCHEMA_COLUMN_SOURCE_ROWID));
+		types = new ArrayList<>(Arrays.asList(JDBCType.VARCHAR, JDBCType.BIGINT, JDBCType.BIGINT));
+		for (ColumnMapping m : mapping.getColumnmappings()) {
+			labels.add(m.getAlias());
+			types.add(getJDBCType(m.getHanadatatype()));
+		}
+		Random random = new Random(42);
+		rows = new Object[ROWS][];
+		for (int i = 0; i < ROWS; i++) {
+			Object[] row = new Object[labels.size()];
+			row[0] = "I";
+			row[1] = null;
+			row[2] = (long) i;
+			for (int j = 3; j < row.length; j++) {
+				row[j] = createValue(mapping.getColumnmappings().get(j-3).getHanadatatype(), random, i);
+			}
+			rows[i] = row;
+		}
+		converter = RowConverter.compile(SyntheticResultSet.createMetaData(labels, types), schema);
+		RecordCursor cursor = converter.open(SyntheticResultSet.create(labels, types, rows));
+		cursor.next();
+		metadata = getMetadata(cursor.getRecord());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void convert(Blackhole bh) throws SQLException {
+		RecordCursor cursor = converter.open(SyntheticResultSet.create(labels, types, rows));
+		while (cursor.next()) {
+			bh.consume(cursor.getRecord());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void convertAndEmit(Blackhole bh) throws SQLException, IOException {
+		RecordCursor cursor = converter.open(SyntheticResultSet.create(labels, types, rows));
+		while (cursor.next()) {
+			JexlRecord r = cursor.getRecord();
+			for (Map.Entry<Integer, Object> e : metadata.entrySet()) {
+				r.put(e.getKey(), e.getValue());
+			}
+			bh.consume(AvroSerializer.serialize(SCHEMA_ID, r));
+		}
+	}
+
+	private static HanaTableMapping createMapping(String shape) {
+		HanaTableMapping mapping = new HanaTableMapping();
+		mapping.setName(shape);
+		mapping.setHanatablename(shape);
+		switch (shape) {
+		case "NARROW": // e.g. VBUK
+			mapping.addPK(1, mapping.addMapping("MANDT", "\"MANDT\"", "NVARCHAR(3)"));
+			mapping.addPK(2, mapping.addMapping("VBELN", "\"VBELN\"", "NVARCHAR(10)"));
+			mapping.addMapping("GBSTK", "\"GBSTK\"", "NVARCHAR(1)");
+			mapping.addMapping("ERDAT", "\"ERDAT\"", "DATE");
+			break;
+		case "WIDE": // e.g. MARA with all its append fields
+			mapping.addPK(1, mapping.addMapping("MANDT", "\"MANDT\"", "NVARCHAR(3)"));
+			mapping.addPK(2, mapping.addMapping("MATNR", "\"MATNR\"", "NVARCHAR(40)"));
+			String[] widetypes = {"NVARCHAR(40)", "NVARCHAR(4)", "DECIMAL(13, 3)", "DATE", "INTEGER", "NVARCHAR(1)"};
+			for (int i = 2; i < 300; i++) {
+				String name = "FIELD" + i;
+				mapping.addMapping(name, "\"" + name + "\"", widetypes[i % widetypes.length]);
+			}
+			break;
+		case "DECIMAL": // e.g. ACDOCA amounts
+			mapping.addPK(1, mapping.addMapping("RCLNT", "\"RCLNT\"", "NVARCHAR(3)"));
+			mapping.addPK(2, mapping.addMapping("RLDNR", "\"RLDNR\"", "NVARCHAR(2)"));
+			mapping.addPK(3, mapping.addMapping("RBUKRS", "\"RBUKRS\"", "NVARCHAR(4)"));
+			mapping.addPK(4, mapping.addMapping("GJAHR", "\"GJAHR\"", "NVARCHAR(4)"));
+			mapping.addPK(5, mapping.addMapping("BELNR", "\"BELNR\"", "NVARCHAR(10)"));
+			mapping.addPK(6, mapping.addMapping("DOCLN", "\"DOCLN\"", "NVARCHAR(6)"));
+			for (int i = 0; i < 60; i++) {
+				String name = "AMOUNT" + i;
+				mapping.addMapping(name, "\"" + name + "\"", i % 10 == 0 ? "DECIMAL(25, 6)" : "DECIMAL(23, 2)");
+			}
+			mapping.addMapping("TIMESTAMP", "\"TIMESTAMP\"", "TIMESTAMP");
+			break;
+		case "LOB": // e.g. STXL texts and attachments
+			mapping.addPK(1, mapping.addMapping("MANDT", "\"MANDT\"", "NVARCHAR(3)"));
+			mapping.addPK(2, mapping.addMapping("TDNAME", "\"TDNAME\"", "NVARCHAR(70)"));
+			mapping.addMapping("TEXT", "\"TEXT\"", "NCLOB");
+			mapping.addMapping("CONTENT", "\"CONTENT\"", "BLOB");
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown table shape " + shape);
+		}
+		return mapping;
+	}
+
+	private static JDBCType getJDBCType(String hanadatatype) {
+		String datatype = hanadatatype.replaceAll("\\(.*", "");
+		switch (datatype) {
+		case "NVARCHAR":
+			return JDBCType.NVARCHAR;
+		case "DECIMAL":
+			return JDBCType.DECIMAL;
+		case "INTEGER":
+			return JDBCType.INTEGER;
+		case "DATE":
+			return JDBCType.DATE;
+		case "TIMESTAMP":
+			return JDBCType.TIMESTAMP;
+		case "NCLOB":
+			return JDBCType.NCLOB;
+		case "BLOB":
+			return JDBCType.BLOB;
+		default:
+			throw new IllegalArgumentException("No JDBC type for " + hanadatatype);
+		}
+	}
+
+	private static Object createValue(String hanadatatype, Random random, int row) {
+		String datatype = hanadatatype.replaceAll("\\(.*", "");
+		switch (datatype) {
+		case "NVARCHAR":
+			int length = Integer.parseInt(hanadatatype.replaceAll("\\D", ""));
+			StringBuilder b = new StringBuilder();
+			for (int i = 0; i < Math.min(length, 12); i++) {
+				b.append((char) ('A' + random.nextInt(26)));
+			}
+			return b.toString();
+		case "DECIMAL":
+			int scale = Integer.parseInt(hanadatatype.replaceAll(".*,\\s*|\\)", ""));
+			return BigDecimal.valueOf(random.nextInt(100000000) - 50000000, scale);
+		case "INTEGER":
+			return random.nextInt();
+		case "DATE":
+			return new Date(1600000000000L + row * 86400000L);
+		case "TIMESTAMP":
+			return new Timestamp(1600000000000L + row * 1000L);
+		case "NCLOB":
+			char[] text = new char[8000];
+			Arrays.fill(text, 'x');
+			return new String(text);
+		case "BLOB":
+			byte[] content = new byte[16384];
+			random.nextBytes(content);
+			return content;
+		default:
+			throw new IllegalArgumentException("No value for " + hanadatatype);
+		}
+	}
+
+	/**
+	 * @param r a converted record
+	 * @return a value for each mandatory field the select does not fill, like the change type addRow() sets
+	 */
+	private static Map<Integer, Object> getMetadata(JexlRecord r) {
+		Map<Integer, Object> values = new TreeMap<>();
+		for (Field f : r.getSchema().getFields()) {
+			Schema s = f.schema();
+			if (r.get(f.pos()) == null && s.getType() != Schema.Type.UNION) {
+				switch (s.getType()) {
+				case STRING:
+					values.put(f.pos(), "I");
+					break;
+				case LONG:
+					values.put(f.pos(), System.currentTimeMillis());
+					break;
+				case INT:
+					values.put(f.pos(), 0);
+					break;
+				case BOOLEAN:
+					values.put(f.pos(), false);
+					break;
+				case DOUBLE:
+					values.put(f.pos(), 0d);
+					break;
+				case FLOAT:
+					values.put(f.pos(), 0f);
+					break;
+				case BYTES:
+					values.put(f.pos(), ByteBuffer.allocate(0));
+					break;
+				case ENUM:
+					values.put(f.pos(), new GenericData.EnumSymbol(s, s.getEnumSymbols().get(0)));
+					break;
+				case ARRAY:
+					values.put(f.pos(), new GenericData.Array<>(0, s));
+					break;
+				default:
+					break;
+				}
+			}
+		}
+		return values;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(RowConversionBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
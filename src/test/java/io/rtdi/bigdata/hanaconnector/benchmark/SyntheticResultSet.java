@@ -0,0 +1,118 @@
+package io.rtdi.bigdata.hanaconnector.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.JDBCType;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.List;
+
+/**
+ * A forward only ResultSet over rows held in memory, with the column layout of the initial and delta selects.<br>
+ * It is a dynamic proxy, so every accessor costs the same reflective dispatch. This adds a constant per value, the
+ * benchmarks are meant to compare conversion changes, not to report absolute JDBC throughput.
+ *
+ */
+public class SyntheticResultSet implements InvocationHandler {
+	private final List<String> labels;
+	private final List<JDBCType> types;
+	private final Object[][] rows;
+	private int row = -1;
+	private boolean wasnull;
+
+	private SyntheticResultSet(List<String> labels, List<JDBCType> types, Object[][] rows) {
+		this.labels = labels;
+		this.types = types;
+		this.rows = rows;
+	}
+
+	/**
+	 * @param labels the column labels, index 0 is JDBC column 1
+	 * @param types the JDBC type per column
+	 * @param rows the values per row and column
+	 * @return a new ResultSet positioned before the first row
+	 */
+	public static ResultSet create(List<String> labels, List<JDBCType> types, Object[][] rows) {
+		return (ResultSet) Proxy.newProxyInstance(SyntheticResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class},
+				new SyntheticResultSet(labels, types, rows));
+	}
+
+	/**
+	 * @param labels the column labels, index 0 is JDBC column 1
+	 * @param types the JDBC type per column
+	 * @return the metadata of a ResultSet with these columns
+	 */
+	public static ResultSetMetaData createMetaData(List<String> labels, List<JDBCType> types) {
+		return (ResultSetMetaData) Proxy.newProxyInstance(SyntheticResultSet.class.getClassLoader(), new Class<?>[] {ResultSetMetaData.class},
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+					case "getColumnCount":
+						return labels.size();
+					case "getColumnLabel":
+					case "getColumnName":
+						return labels.get((Integer) args[0] - 1);
+					case "getColumnType":
+						return types.get((Integer) args[0] - 1).getVendorTypeNumber();
+					default:
+						throw new UnsupportedOperationException(method.getName());
+					}
+				});
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		switch (method.getName()) {
+		case "next":
+			row++;
+			return row < rows.length;
+		case "wasNull":
+			return wasnull;
+		case "getMetaData":
+			return createMetaData(labels, types);
+		case "close":
+			return null;
+		case "isClosed":
+			return false;
+		case "getString":
+			return (String) value(args);
+		case "getBytes":
+			return (byte[]) value(args);
+		case "getBigDecimal":
+			return (BigDecimal) value(args);
+		case "getDate":
+		case "getTime":
+		case "getTimestamp":
+			return value(args);
+		case "getLong": {
+			Number v = (Number) value(args);
+			return v == null ? 0L : v.longValue();
+		}
+		case "getInt": {
+			Number v = (Number) value(args);
+			return v == null ? 0 : v.intValue();
+		}
+		case "getDouble": {
+			Number v = (Number) value(args);
+			return v == null ? 0d : v.doubleValue();
+		}
+		case "getFloat": {
+			Number v = (Number) value(args);
+			return v == null ? 0f : v.floatValue();
+		}
+		case "getBoolean": {
+			Boolean v = (Boolean) value(args);
+			return v == null ? false : v;
+		}
+		default:
+			throw new UnsupportedOperationException(method.getName());
+		}
+	}
+
+	private Object value(Object[] args) {
+		Object v = rows[row][(Integer) args[0] - 1];
+		wasnull = v == null;
+		return v;
+	}
+}